@@ -78,6 +78,11 @@ android {
         viewBinding = true
         buildConfig = true
     }
+    
+    // Exported Room schemas, read by MigrationTestHelper in instrumented tests
+    sourceSets {
+        getByName("androidTest").assets.srcDir("$projectDir/schemas")
+    }
 }
 
 dependencies {
@@ -128,5 +133,6 @@ dependencies {
     // Testing
     testImplementation("junit:junit:4.13.2")
     androidTestImplementation("androidx.test.ext:junit:1.1.5")
+    androidTestImplementation("androidx.room:room-testing:$roomVersion")
     androidTestImplementation("androidx.test.espresso:espresso-core:3.5.1")
 }
@@ -0,0 +1,261 @@
+package com.simpleattendance.data.local
+
+import android.content.ContentValues
+import android.database.sqlite.SQLiteConstraintException
+import android.database.sqlite.SQLiteDatabase
+import androidx.room.testing.MigrationTestHelper
+import androidx.sqlite.db.SupportSQLiteDatabase
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import com.simpleattendance.data.local.entity.AttendanceBitmapEntity
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Runs each schema migration against a database created from the exported schema of the
+ * version before it, then has Room validate the result against the next exported schema.
+ */
+@RunWith(AndroidJUnit4::class)
+class MigrationTest {
+
+    @get:Rule
+    val helper = MigrationTestHelper(
+        InstrumentationRegistry.getInstrumentation(),
+        AppDatabase::class.java
+    )
+
+    @Test
+    fun migrate1To2_keepsSessionsAndMakesSessionKeyUnique() {
+        helper.createDatabase(TEST_DB, 1).apply {
+            execSQL("INSERT INTO classes (id, branch, semester, section, subject, createdAt) VALUES (1, 'CSE', '4', 'A', 'DS', 0)")
+            execSQL(
+                "INSERT INTO attendance_sessions (id, classId, date, presentCount, absentCount, totalCount) " +
+                    "VALUES (10, 1, 1000, 2, 1, 3)"
+            )
+            close()
+        }
+
+        val db = helper.runMigrationsAndValidate(TEST_DB, 2, true, AppDatabase.MIGRATION_1_2)
+
+        db.query("SELECT presentCount, absentCount, totalCount, sessionKey FROM attendance_sessions WHERE id = 10").use { cursor ->
+            assertTrue(cursor.moveToFirst())
+            assertEquals(2, cursor.getInt(0))
+            assertEquals(1, cursor.getInt(1))
+            assertEquals(3, cursor.getInt(2))
+            assertTrue(cursor.isNull(3))
+        }
+
+        db.execSQL("INSERT INTO attendance_sessions (classId, date, presentCount, absentCount, totalCount, sessionKey) VALUES (1, 2000, 0, 0, 0, 'k')")
+        val duplicateRejected = try {
+            db.execSQL("INSERT INTO attendance_sessions (classId, date, presentCount, absentCount, totalCount, sessionKey) VALUES (1, 3000, 0, 0, 0, 'k')")
+            false
+        } catch (e: SQLiteConstraintException) {
+            true
+        }
+        assertTrue(duplicateRejected)
+    }
+
+    @Test
+    fun migrate2To3_packsRecordsIntoBitmaps() {
+        helper.createDatabase(TEST_DB, 2).apply {
+            insertClassAndStudents(this)
+            insertSession(this, 10, 1000)
+            insertSession(this, 11, 2000)
+            insertSession(this, 12, 3000)
+            // Inserted out of id order; the migration must sort them before packing
+            insertRecord(this, 10, 3, "P")
+            insertRecord(this, 10, 1, "P")
+            insertRecord(this, 10, 2, "A")
+            insertRecord(this, 11, 2, "P")
+            close()
+        }
+
+        val db = helper.runMigrationsAndValidate(TEST_DB, 3, true, AppDatabase.MIGRATION_2_3)
+
+        val session10 = readBitmap(db, 10)
+        assertEquals(3, session10.size)
+        assertEquals(listOf(1L, 2L, 3L), (0 until session10.size).map { session10.studentIdAt(it) })
+        assertEquals(AttendanceStatus.PRESENT, session10.codeOf(1))
+        assertEquals(AttendanceStatus.ABSENT, session10.codeOf(2))
+        assertEquals(AttendanceStatus.PRESENT, session10.codeOf(3))
+
+        val session11 = readBitmap(db, 11)
+        assertEquals(1, session11.size)
+        assertEquals(AttendanceStatus.PRESENT, session11.codeOf(2))
+        assertEquals(AttendanceStatus.UNMARKED, session11.codeOf(1))
+
+        // A session without records gets no bitmap row
+        db.query("SELECT COUNT(*) FROM attendance_bitmaps WHERE sessionId = 12").use { cursor ->
+            assertTrue(cursor.moveToFirst())
+            assertEquals(0, cursor.getInt(0))
+        }
+        db.query("SELECT name FROM sqlite_master WHERE type = 'table' AND name = 'attendance_records'").use { cursor ->
+            assertFalse(cursor.moveToFirst())
+        }
+    }
+
+    @Test
+    fun migrate3To4_movesStudentIndexToRosterOrder() {
+        helper.createDatabase(TEST_DB, 3).apply {
+            insertClassAndStudents(this)
+            close()
+        }
+
+        val db = helper.runMigrationsAndValidate(TEST_DB, 4, true, AppDatabase.MIGRATION_3_4)
+
+        assertEquals(setOf("index_students_classId_rollNo_name"), indexNames(db, "students"))
+        db.query("SELECT COUNT(*) FROM students WHERE classId = 1").use { cursor ->
+            assertTrue(cursor.moveToFirst())
+            assertEquals(3, cursor.getInt(0))
+        }
+    }
+
+    @Test
+    fun migrate4To5_indexesSessionsByClassAndDate() {
+        helper.createDatabase(TEST_DB, 4).apply {
+            insertClassAndStudents(this)
+            insertSession(this, 10, 1000)
+            close()
+        }
+
+        val db = helper.runMigrationsAndValidate(TEST_DB, 5, true, AppDatabase.MIGRATION_4_5)
+
+        assertEquals(
+            setOf(
+                "index_attendance_sessions_classId_date",
+                "index_attendance_sessions_date",
+                "index_attendance_sessions_sessionKey"
+            ),
+            indexNames(db, "attendance_sessions")
+        )
+        db.query("SELECT date FROM attendance_sessions WHERE id = 10").use { cursor ->
+            assertTrue(cursor.moveToFirst())
+            assertEquals(1000L, cursor.getLong(0))
+        }
+    }
+
+    @Test
+    fun migrate5To6_addsDraftTable() {
+        helper.createDatabase(TEST_DB, 5).apply {
+            insertClassAndStudents(this)
+            close()
+        }
+
+        val db = helper.runMigrationsAndValidate(TEST_DB, 6, true, AppDatabase.MIGRATION_5_6)
+
+        val draft = PackedStatuses.pack(0L, longArrayOf(1, 2, 3), byteArrayOf(AttendanceStatus.PRESENT, AttendanceStatus.UNMARKED, AttendanceStatus.ABSENT))
+        val values = ContentValues().apply {
+            put("classId", 1L)
+            put("sessionKey", "draft-key")
+            put("studentIds", draft.studentIds)
+            put("statuses", draft.statuses)
+            put("currentStudentId", 2L)
+            put("updatedAt", 5000L)
+        }
+        db.insert("attendance_drafts", SQLiteDatabase.CONFLICT_ABORT, values)
+
+        db.query("SELECT studentIds, statuses, currentStudentId FROM attendance_drafts WHERE classId = 1").use { cursor ->
+            assertTrue(cursor.moveToFirst())
+            val restored = PackedStatuses(AttendanceBitmapEntity(0L, cursor.getBlob(0), cursor.getBlob(1)))
+            assertEquals(AttendanceStatus.PRESENT, restored.codeOf(1))
+            assertEquals(AttendanceStatus.UNMARKED, restored.codeOf(2))
+            assertEquals(AttendanceStatus.ABSENT, restored.codeOf(3))
+            assertEquals(2L, cursor.getLong(2))
+        }
+    }
+
+    @Test
+    fun migrate6To7_backfillsRollKeys() {
+        helper.createDatabase(TEST_DB, 6).apply {
+            insertClassAndStudents(this)
+            close()
+        }
+
+        val db = helper.runMigrationsAndValidate(TEST_DB, 7, true, AppDatabase.MIGRATION_6_7)
+
+        db.query("SELECT rollNo, rollKey FROM students ORDER BY id").use { cursor ->
+            while (cursor.moveToNext()) {
+                assertEquals(RollKey.of(cursor.getString(0)), cursor.getString(1))
+            }
+        }
+        val ordered = ArrayList<String>()
+        db.query("SELECT rollNo FROM students WHERE classId = 1 ORDER BY rollKey, name").use { cursor ->
+            while (cursor.moveToNext()) ordered.add(cursor.getString(0))
+        }
+        assertEquals(listOf("CS1", "CS2", "CS10"), ordered)
+        assertEquals(setOf("index_students_classId_rollKey_name"), indexNames(db, "students"))
+    }
+
+    @Test
+    fun migrate1To7_keepsEveryRecordedStatus() {
+        val recorded = mapOf(
+            10L to mapOf(1L to "P", 2L to "A", 3L to "P"),
+            11L to mapOf(1L to "A", 2L to "A", 3L to "A"),
+            12L to mapOf(2L to "P")
+        )
+        helper.createDatabase(TEST_DB, 1).apply {
+            insertClassAndStudents(this)
+            for ((sessionId, statuses) in recorded) {
+                insertSession(this, sessionId, sessionId * 1000)
+                for ((studentId, status) in statuses) insertRecord(this, sessionId, studentId, status)
+            }
+            close()
+        }
+
+        val db = helper.runMigrationsAndValidate(TEST_DB, 7, true, *AppDatabase.ALL_MIGRATIONS)
+
+        for ((sessionId, statuses) in recorded) {
+            val packed = readBitmap(db, sessionId)
+            assertEquals(statuses.size, packed.size)
+            for (position in 0 until packed.size) {
+                val studentId = packed.studentIdAt(position)
+                assertEquals(
+                    "session $sessionId, student $studentId",
+                    AttendanceStatus.toCode(statuses[studentId]),
+                    packed.codeAt(position)
+                )
+            }
+        }
+    }
+
+    private fun insertClassAndStudents(db: SupportSQLiteDatabase) {
+        db.execSQL("INSERT INTO classes (id, branch, semester, section, subject, createdAt) VALUES (1, 'CSE', '4', 'A', 'DS', 0)")
+        db.execSQL("INSERT INTO students (id, classId, rollNo, name) VALUES (1, 1, 'CS1', 'Asha')")
+        db.execSQL("INSERT INTO students (id, classId, rollNo, name) VALUES (2, 1, 'CS2', 'Ravi')")
+        db.execSQL("INSERT INTO students (id, classId, rollNo, name) VALUES (3, 1, 'CS10', 'Meera')")
+    }
+
+    private fun insertSession(db: SupportSQLiteDatabase, id: Long, date: Long) {
+        db.execSQL(
+            "INSERT INTO attendance_sessions (id, classId, date, presentCount, absentCount, totalCount) " +
+                "VALUES ($id, 1, $date, 0, 0, 0)"
+        )
+    }
+
+    private fun insertRecord(db: SupportSQLiteDatabase, sessionId: Long, studentId: Long, status: String) {
+        db.execSQL("INSERT INTO attendance_records (sessionId, studentId, status) VALUES ($sessionId, $studentId, '$status')")
+    }
+
+    private fun readBitmap(db: SupportSQLiteDatabase, sessionId: Long): PackedStatuses {
+        db.query("SELECT studentIds, statuses FROM attendance_bitmaps WHERE sessionId = $sessionId").use { cursor ->
+            assertTrue(cursor.moveToFirst())
+            return PackedStatuses(AttendanceBitmapEntity(sessionId, cursor.getBlob(0), cursor.getBlob(1)))
+        }
+    }
+
+    private fun indexNames(db: SupportSQLiteDatabase, table: String): Set<String> {
+        val names = HashSet<String>()
+        db.query("SELECT name FROM sqlite_master WHERE type = 'index' AND tbl_name = ? AND name LIKE 'index_%'", arrayOf(table)).use { cursor ->
+            while (cursor.moveToNext()) names.add(cursor.getString(0))
+        }
+        return names
+    }
+
+    companion object {
+        private const val TEST_DB = "migration-test"
+    }
+}
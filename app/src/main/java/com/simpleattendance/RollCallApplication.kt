@@ -1,7 +1,52 @@
 package com.simpleattendance
 
 import android.app.Application
+import androidx.appcompat.app.AppCompatDelegate
+import androidx.core.os.trace
+import com.simpleattendance.data.repository.AttendanceRepository
+import com.simpleattendance.data.repository.SettingsRepository
+import com.simpleattendance.di.ApplicationScope
+import com.simpleattendance.util.StartupTrace
+import com.simpleattendance.util.TypefaceProvider
 import dagger.hilt.android.HiltAndroidApp
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.launch
+import javax.inject.Inject
 
 @HiltAndroidApp
-class RollCallApplication : Application()
+class RollCallApplication : Application() {
+    
+    @Inject
+    lateinit var settingsRepository: SettingsRepository
+    
+    @Inject
+    lateinit var attendanceRepository: AttendanceRepository
+    
+    @Inject
+    @ApplicationScope
+    lateinit var applicationScope: CoroutineScope
+    
+    override fun onCreate() {
+        StartupTrace.begin()
+        super.onCreate()
+        
+        trace("RollCall:Application.onCreate") {
+            settingsRepository.start()
+            warmUpDatabase()
+            TypefaceProvider.preload(this, R.font.outfit, R.font.inter)
+            
+            // Set before any activity is created, so a saved theme never forces a recreate
+            AppCompatDelegate.setDefaultNightMode(settingsRepository.startupNightMode)
+        }
+    }
+    
+    // Opens rollcall.db (running any pending migration) and runs the class-list query in the
+    // background, so the first screen finds the database open and its pages already cached
+    private fun warmUpDatabase() {
+        applicationScope.launch(Dispatchers.IO) {
+            attendanceRepository.getAllClasses().first()
+        }
+    }
+}
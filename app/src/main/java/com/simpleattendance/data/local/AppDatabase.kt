@@ -1,27 +1,163 @@
 package com.simpleattendance.data.local
 
+import android.content.ContentValues
+import android.database.sqlite.SQLiteDatabase
 import androidx.room.Database
 import androidx.room.RoomDatabase
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
 import com.simpleattendance.data.local.dao.ClassDao
 import com.simpleattendance.data.local.dao.StudentDao
 import com.simpleattendance.data.local.dao.AttendanceDao
 import com.simpleattendance.data.local.entity.ClassEntity
 import com.simpleattendance.data.local.entity.StudentEntity
 import com.simpleattendance.data.local.entity.AttendanceSessionEntity
-import com.simpleattendance.data.local.entity.AttendanceRecordEntity
+import com.simpleattendance.data.local.entity.AttendanceBitmapEntity
+import com.simpleattendance.data.local.entity.AttendanceDraftEntity
 
 @Database(
     entities = [
         ClassEntity::class,
         StudentEntity::class,
         AttendanceSessionEntity::class,
-        AttendanceRecordEntity::class
+        AttendanceBitmapEntity::class,
+        AttendanceDraftEntity::class
     ],
-    version = 1,
+    version = 7,
     exportSchema = true
 )
 abstract class AppDatabase : RoomDatabase() {
     abstract fun classDao(): ClassDao
     abstract fun studentDao(): StudentDao
     abstract fun attendanceDao(): AttendanceDao
+    
+    companion object {
+        val MIGRATION_1_2 = object : Migration(1, 2) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("ALTER TABLE attendance_sessions ADD COLUMN sessionKey TEXT")
+                db.execSQL(
+                    "CREATE UNIQUE INDEX IF NOT EXISTS index_attendance_sessions_sessionKey " +
+                        "ON attendance_sessions (sessionKey)"
+                )
+            }
+        }
+        
+        /**
+         * Replaces one attendance_records row per mark with one packed attendance_bitmaps
+         * row per session. Existing records are packed session by session, then the old
+         * table is dropped.
+         */
+        val MIGRATION_2_3 = object : Migration(2, 3) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `attendance_bitmaps` (" +
+                        "`sessionId` INTEGER NOT NULL, `studentIds` BLOB NOT NULL, `statuses` BLOB NOT NULL, " +
+                        "PRIMARY KEY(`sessionId`), " +
+                        "FOREIGN KEY(`sessionId`) REFERENCES `attendance_sessions`(`id`) " +
+                        "ON UPDATE NO ACTION ON DELETE CASCADE )"
+                )
+                
+                db.query("SELECT sessionId, studentId, status FROM attendance_records ORDER BY sessionId, studentId").use { cursor ->
+                    var sessionId = -1L
+                    val ids = ArrayList<Long>()
+                    val codes = ArrayList<Byte>()
+                    
+                    fun flush() {
+                        if (ids.isEmpty()) return
+                        val bitmap = PackedStatuses.pack(sessionId, ids.toLongArray(), codes.toByteArray())
+                        val values = ContentValues().apply {
+                            put("sessionId", bitmap.sessionId)
+                            put("studentIds", bitmap.studentIds)
+                            put("statuses", bitmap.statuses)
+                        }
+                        db.insert("attendance_bitmaps", SQLiteDatabase.CONFLICT_REPLACE, values)
+                        ids.clear()
+                        codes.clear()
+                    }
+                    
+                    while (cursor.moveToNext()) {
+                        val rowSessionId = cursor.getLong(0)
+                        if (rowSessionId != sessionId) {
+                            flush()
+                            sessionId = rowSessionId
+                        }
+                        ids.add(cursor.getLong(1))
+                        codes.add(AttendanceStatus.toCode(cursor.getString(2)))
+                    }
+                    flush()
+                }
+                
+                db.execSQL("DROP TABLE IF EXISTS attendance_records")
+            }
+        }
+        
+        val MIGRATION_3_4 = object : Migration(3, 4) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("DROP INDEX IF EXISTS index_students_classId")
+                db.execSQL(
+                    "CREATE INDEX IF NOT EXISTS index_students_classId_rollNo_name " +
+                        "ON students (classId, rollNo, name)"
+                )
+            }
+        }
+        
+        val MIGRATION_4_5 = object : Migration(4, 5) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("DROP INDEX IF EXISTS index_attendance_sessions_classId")
+                db.execSQL(
+                    "CREATE INDEX IF NOT EXISTS index_attendance_sessions_classId_date " +
+                        "ON attendance_sessions (classId, date)"
+                )
+                db.execSQL(
+                    "CREATE INDEX IF NOT EXISTS index_attendance_sessions_date " +
+                        "ON attendance_sessions (date)"
+                )
+            }
+        }
+        
+        val MIGRATION_5_6 = object : Migration(5, 6) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `attendance_drafts` (" +
+                        "`classId` INTEGER NOT NULL, `sessionKey` TEXT NOT NULL, `studentIds` BLOB NOT NULL, " +
+                        "`statuses` BLOB NOT NULL, `currentStudentId` INTEGER NOT NULL, `updatedAt` INTEGER NOT NULL, " +
+                        "PRIMARY KEY(`classId`), " +
+                        "FOREIGN KEY(`classId`) REFERENCES `classes`(`id`) " +
+                        "ON UPDATE NO ACTION ON DELETE CASCADE )"
+                )
+            }
+        }
+        
+        /**
+         * Adds the natural-order roll key, filled in for existing students, and moves the
+         * roster index onto it so class lists stay an index scan.
+         */
+        val MIGRATION_6_7 = object : Migration(6, 7) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("ALTER TABLE students ADD COLUMN rollKey TEXT NOT NULL DEFAULT ''")
+                db.query("SELECT id, rollNo FROM students").use { cursor ->
+                    val values = ContentValues()
+                    while (cursor.moveToNext()) {
+                        values.put("rollKey", RollKey.of(cursor.getString(1)))
+                        db.update("students", SQLiteDatabase.CONFLICT_NONE, values, "id = ?", arrayOf<Any>(cursor.getLong(0)))
+                    }
+                }
+                db.execSQL("DROP INDEX IF EXISTS index_students_classId_rollNo_name")
+                db.execSQL(
+                    "CREATE INDEX IF NOT EXISTS index_students_classId_rollKey_name " +
+                        "ON students (classId, rollKey, name)"
+                )
+            }
+        }
+        
+        /** Every migration in version order, for the database builder and migration tests. */
+        val ALL_MIGRATIONS = arrayOf(
+            MIGRATION_1_2,
+            MIGRATION_2_3,
+            MIGRATION_3_4,
+            MIGRATION_4_5,
+            MIGRATION_5_6,
+            MIGRATION_6_7
+        )
+    }
 }
@@ -0,0 +1,23 @@
+package com.simpleattendance.data.local
+
+/**
+ * Compact status codes shared by the marking engine and the storage layer.
+ * Every code fits in two bits.
+ */
+object AttendanceStatus {
+    const val UNMARKED: Byte = 0
+    const val PRESENT: Byte = 1
+    const val ABSENT: Byte = 2
+
+    fun fromCode(code: Byte): String? = when (code) {
+        PRESENT -> "P"
+        ABSENT -> "A"
+        else -> null
+    }
+
+    fun toCode(status: String?): Byte = when (status) {
+        "P" -> PRESENT
+        "A" -> ABSENT
+        else -> UNMARKED
+    }
+}
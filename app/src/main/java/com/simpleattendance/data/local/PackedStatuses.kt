@@ -0,0 +1,115 @@
+package com.simpleattendance.data.local
+
+import com.simpleattendance.data.local.entity.AttendanceBitmapEntity
+import com.simpleattendance.data.local.entity.AttendanceDraftEntity
+import com.simpleattendance.data.local.entity.StudentEntity
+import java.io.ByteArrayOutputStream
+
+/**
+ * Read view over an [AttendanceBitmapEntity]. Nothing is decoded until a status is asked for.
+ *
+ * Format: `studentIds` is a varint count followed by varint deltas of the student ids in
+ * ascending order. `statuses` holds one [AttendanceStatus] code per roster position,
+ * four positions per byte, lowest bits first.
+ */
+class PackedStatuses(private val bitmap: AttendanceBitmapEntity) {
+
+    private val ids: LongArray by lazy(LazyThreadSafetyMode.NONE) { decodeIds(bitmap.studentIds) }
+
+    val sessionId: Long
+        get() = bitmap.sessionId
+
+    val size: Int
+        get() = ids.size
+
+    fun studentIdAt(position: Int): Long = ids[position]
+
+    fun codeAt(position: Int): Byte =
+        ((bitmap.statuses[position shr 2].toInt() shr ((position and 3) shl 1)) and 3).toByte()
+
+    /** Status code of [studentId], or [AttendanceStatus.UNMARKED] if they were not on the roster. */
+    fun codeOf(studentId: Long): Byte {
+        val position = ids.binarySearch(studentId)
+        return if (position >= 0) codeAt(position) else AttendanceStatus.UNMARKED
+    }
+
+    companion object {
+
+        /** Read view over a draft, whose blobs use the same format as a session's bitmap. */
+        fun of(draft: AttendanceDraftEntity): PackedStatuses =
+            PackedStatuses(AttendanceBitmapEntity(0L, draft.studentIds, draft.statuses))
+
+        /** Packs [codes], aligned with [students], into a bitmap row for [sessionId]. */
+        fun pack(sessionId: Long, students: List<StudentEntity>, codes: ByteArray): AttendanceBitmapEntity {
+            val order = students.indices.sortedBy { students[it].id }
+            val ids = LongArray(order.size) { students[order[it]].id }
+            val sortedCodes = ByteArray(order.size) { codes[order[it]] }
+            return pack(sessionId, ids, sortedCodes)
+        }
+
+        /** [ids] must be ascending; [codes] is aligned with it. */
+        fun pack(sessionId: Long, ids: LongArray, codes: ByteArray): AttendanceBitmapEntity {
+            return AttendanceBitmapEntity(
+                sessionId = sessionId,
+                studentIds = encodeIds(ids),
+                statuses = packCodes(codes)
+            )
+        }
+
+        fun packCodes(codes: ByteArray): ByteArray {
+            val packed = ByteArray((codes.size + 3) shr 2)
+            for (position in codes.indices) {
+                val shift = (position and 3) shl 1
+                packed[position shr 2] = (packed[position shr 2].toInt() or ((codes[position].toInt() and 3) shl shift)).toByte()
+            }
+            return packed
+        }
+
+        fun unpackCodes(packed: ByteArray, size: Int): ByteArray {
+            return ByteArray(size) { position ->
+                ((packed[position shr 2].toInt() shr ((position and 3) shl 1)) and 3).toByte()
+            }
+        }
+
+        private fun encodeIds(ids: LongArray): ByteArray {
+            val out = ByteArrayOutputStream(ids.size + 2)
+            writeVarint(out, ids.size.toLong())
+            var previous = 0L
+            for (id in ids) {
+                writeVarint(out, id - previous)
+                previous = id
+            }
+            return out.toByteArray()
+        }
+
+        private fun decodeIds(blob: ByteArray): LongArray {
+            var offset = 0
+            fun readVarint(): Long {
+                var result = 0L
+                var shift = 0
+                while (true) {
+                    val b = blob[offset++].toInt()
+                    result = result or ((b and 0x7F).toLong() shl shift)
+                    if (b and 0x80 == 0) return result
+                    shift += 7
+                }
+            }
+
+            val count = readVarint().toInt()
+            var previous = 0L
+            return LongArray(count) {
+                previous += readVarint()
+                previous
+            }
+        }
+
+        private fun writeVarint(out: ByteArrayOutputStream, value: Long) {
+            var remaining = value
+            while (remaining and 0x7FL.inv() != 0L) {
+                out.write(((remaining and 0x7F) or 0x80).toInt())
+                remaining = remaining ushr 7
+            }
+            out.write(remaining.toInt())
+        }
+    }
+}
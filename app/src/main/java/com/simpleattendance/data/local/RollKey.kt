@@ -0,0 +1,42 @@
+package com.simpleattendance.data.local
+
+import java.util.Locale
+
+/**
+ * Natural sort key for roll numbers, stored with each student so that a plain text
+ * ORDER BY lists rolls the way a printed register does: "CS2" before "CS10", and
+ * case ignored. Text is lowercased; every run of digits is written as a length
+ * character followed by the digits without leading zeros, so a shorter number always
+ * compares lower than a longer one and equal lengths compare digit by digit.
+ */
+object RollKey {
+
+    // Length characters start at '0', which sorts below every lowercase letter
+    private const val LENGTH_BASE = '0'
+    private const val MAX_RUN_LENGTH = 42
+
+    fun of(rollNo: String): String {
+        val text = rollNo.trim().lowercase(Locale.ROOT)
+        val key = StringBuilder(text.length + 4)
+        var i = 0
+        while (i < text.length) {
+            val c = text[i]
+            if (!c.isAsciiDigit()) {
+                key.append(c)
+                i++
+                continue
+            }
+            var end = i
+            while (end < text.length && text[end].isAsciiDigit()) end++
+            var start = i
+            while (start < end - 1 && text[start] == '0') start++
+            val length = end - start
+            key.append(LENGTH_BASE + minOf(length, MAX_RUN_LENGTH))
+            key.append(text, start, end)
+            i = end
+        }
+        return key.toString()
+    }
+
+    private fun Char.isAsciiDigit(): Boolean = this in '0'..'9'
+}
@@ -0,0 +1,56 @@
+package com.simpleattendance.data.local
+
+import com.simpleattendance.data.local.entity.StudentEntity
+
+/**
+ * The minimal set of writes that turns an existing roster into an edited one.
+ * Matched students keep their ids, so their attendance history survives.
+ */
+data class RosterDiff(
+    val inserts: List<StudentEntity>,
+    val updates: List<StudentEntity>,
+    val deletes: List<StudentEntity>
+) {
+    val isEmpty: Boolean
+        get() = inserts.isEmpty() && updates.isEmpty() && deletes.isEmpty()
+
+    companion object {
+        /**
+         * Matches [incoming] rows (ids unset) to [existing] rows of [classId] in three passes:
+         * exact roll number and name, then roll number alone (a name fix), then name alone
+         * (a roll number fix). Whatever is left over is inserted or deleted.
+         */
+        fun compute(classId: Long, existing: List<StudentEntity>, incoming: List<StudentEntity>): RosterDiff {
+            val unmatched = BooleanArray(incoming.size) { true }
+            val remaining = LinkedHashMap<Long, StudentEntity>(existing.size * 2)
+            existing.forEach { remaining[it.id] = it }
+            val updates = mutableListOf<StudentEntity>()
+
+            fun matchPass(key: (StudentEntity) -> String?, onMatch: (StudentEntity, StudentEntity) -> Unit) {
+                val byKey = HashMap<String, ArrayDeque<StudentEntity>>()
+                remaining.values.forEach { student ->
+                    key(student)?.let { byKey.getOrPut(it) { ArrayDeque() }.addLast(student) }
+                }
+                incoming.forEachIndexed { index, row ->
+                    if (!unmatched[index]) return@forEachIndexed
+                    val match = key(row)?.let { byKey[it]?.removeFirstOrNull() } ?: return@forEachIndexed
+                    unmatched[index] = false
+                    remaining.remove(match.id)
+                    onMatch(match, row)
+                }
+            }
+
+            matchPass({ "${it.rollNo}\u0000${it.name}" }) { _, _ -> }
+            matchPass({ it.rollNo.ifEmpty { null } }) { match, row ->
+                updates.add(match.copy(name = row.name))
+            }
+            matchPass({ it.name.ifEmpty { null } }) { match, row ->
+                updates.add(match.copy(rollNo = row.rollNo, rollKey = row.rollKey))
+            }
+
+            val inserts = incoming.filterIndexed { index, _ -> unmatched[index] }
+                .map { it.copy(id = 0, classId = classId) }
+            return RosterDiff(inserts, updates, remaining.values.toList())
+        }
+    }
+}
@@ -1,8 +1,15 @@
 package com.simpleattendance.data.local.dao
 
 import androidx.room.*
+import com.simpleattendance.data.local.PackedStatuses
+import com.simpleattendance.data.local.entity.AttendanceBitmapEntity
+import com.simpleattendance.data.local.entity.AttendanceDraftEntity
 import com.simpleattendance.data.local.entity.AttendanceSessionEntity
-import com.simpleattendance.data.local.entity.AttendanceRecordEntity
+import com.simpleattendance.data.local.model.SessionKey
+import com.simpleattendance.data.local.model.SessionReport
+import com.simpleattendance.data.local.model.SessionReportHeader
+import com.simpleattendance.data.local.model.SessionWithClass
+import com.simpleattendance.data.local.entity.StudentEntity
 import kotlinx.coroutines.flow.Flow
 
 @Dao
@@ -14,9 +21,111 @@ interface AttendanceDao {
     @Query("SELECT * FROM attendance_sessions WHERE classId = :classId ORDER BY date DESC")
     fun getSessionsByClass(classId: Long): Flow<List<AttendanceSessionEntity>>
     
+    // History queries, ordered by (date DESC, id DESC).
+    // Pages are read by keyset on (date, id) rather than OFFSET. Page queries read keys only,
+    // which the date and (classId, date) indexes cover without touching the table.
+    
+    /** Keys of up to [limit] sessions dated from [from] that come after ([afterDate], [afterId]). */
+    @Query(
+        """
+        SELECT date, id FROM attendance_sessions
+        WHERE date BETWEEN :from AND :afterDate
+            AND (date < :afterDate OR id < :afterId)
+        ORDER BY date DESC, id DESC
+        LIMIT :limit
+        """
+    )
+    suspend fun getSessionPage(from: Long, afterDate: Long, afterId: Long, limit: Int): List<SessionKey>
+    
+    @Query(
+        """
+        SELECT date, id FROM attendance_sessions
+        WHERE classId = :classId
+            AND date BETWEEN :from AND :afterDate
+            AND (date < :afterDate OR id < :afterId)
+        ORDER BY date DESC, id DESC
+        LIMIT :limit
+        """
+    )
+    suspend fun getSessionPageByClass(
+        classId: Long,
+        from: Long,
+        afterDate: Long,
+        afterId: Long,
+        limit: Int
+    ): List<SessionKey>
+    
+    /** Keys of up to [limit] sessions dated up to [to] from ([date], [id]) upwards, oldest first. */
+    @Query(
+        """
+        SELECT date, id FROM attendance_sessions
+        WHERE date BETWEEN :date AND :to
+            AND (date > :date OR id >= :id)
+        ORDER BY date ASC, id ASC
+        LIMIT :limit
+        """
+    )
+    suspend fun getNewerSessionPage(to: Long, date: Long, id: Long, limit: Int): List<SessionKey>
+    
+    @Query(
+        """
+        SELECT date, id FROM attendance_sessions
+        WHERE classId = :classId
+            AND date BETWEEN :date AND :to
+            AND (date > :date OR id >= :id)
+        ORDER BY date ASC, id ASC
+        LIMIT :limit
+        """
+    )
+    suspend fun getNewerSessionPageByClass(classId: Long, to: Long, date: Long, id: Long, limit: Int): List<SessionKey>
+    
+    /**
+     * Sessions after ([startDate], [startId]) down to and including ([endDate], [endId]),
+     * joined to their class.
+     */
+    @Query(
+        """
+        SELECT s.*,
+            c.id AS class_id, c.branch AS class_branch, c.semester AS class_semester,
+            c.section AS class_section, c.subject AS class_subject, c.createdAt AS class_createdAt
+        FROM attendance_sessions s
+        LEFT JOIN classes c ON c.id = s.classId
+        WHERE s.date BETWEEN :endDate AND :startDate
+            AND (s.date < :startDate OR s.id < :startId)
+            AND (s.date > :endDate OR s.id >= :endId)
+        ORDER BY s.date DESC, s.id DESC
+        """
+    )
+    fun getSessionWindow(startDate: Long, startId: Long, endDate: Long, endId: Long): Flow<List<SessionWithClass>>
+    
+    @Query(
+        """
+        SELECT s.*,
+            c.id AS class_id, c.branch AS class_branch, c.semester AS class_semester,
+            c.section AS class_section, c.subject AS class_subject, c.createdAt AS class_createdAt
+        FROM attendance_sessions s
+        LEFT JOIN classes c ON c.id = s.classId
+        WHERE s.classId = :classId
+            AND s.date BETWEEN :endDate AND :startDate
+            AND (s.date < :startDate OR s.id < :startId)
+            AND (s.date > :endDate OR s.id >= :endId)
+        ORDER BY s.date DESC, s.id DESC
+        """
+    )
+    fun getSessionWindowByClass(
+        classId: Long,
+        startDate: Long,
+        startId: Long,
+        endDate: Long,
+        endId: Long
+    ): Flow<List<SessionWithClass>>
+    
     @Query("SELECT * FROM attendance_sessions WHERE id = :id")
     suspend fun getSessionById(id: Long): AttendanceSessionEntity?
     
+    @Query("SELECT id FROM attendance_sessions WHERE sessionKey = :sessionKey")
+    suspend fun getSessionIdByKey(sessionKey: String): Long?
+    
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     suspend fun insertSession(session: AttendanceSessionEntity): Long
     
@@ -26,28 +135,93 @@ interface AttendanceDao {
     @Delete
     suspend fun deleteSession(session: AttendanceSessionEntity)
     
-    // Record queries
-    @Query("SELECT * FROM attendance_records WHERE sessionId = :sessionId")
-    suspend fun getRecordsBySession(sessionId: Long): List<AttendanceRecordEntity>
+    // Status bitmap queries
+    @Query("SELECT * FROM attendance_bitmaps WHERE sessionId = :sessionId")
+    suspend fun getBitmapBySession(sessionId: Long): AttendanceBitmapEntity?
     
-    @Query("SELECT * FROM attendance_records WHERE sessionId = :sessionId AND status = 'P'")
-    suspend fun getPresentRecords(sessionId: Long): List<AttendanceRecordEntity>
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertBitmap(bitmap: AttendanceBitmapEntity)
     
-    @Query("SELECT * FROM attendance_records WHERE sessionId = :sessionId AND status = 'A'")
-    suspend fun getAbsentRecords(sessionId: Long): List<AttendanceRecordEntity>
+    /** Bitmap of the class's most recent session, found through the (classId, date) index. */
+    @Query(
+        """
+        SELECT b.* FROM attendance_sessions s
+        INNER JOIN attendance_bitmaps b ON b.sessionId = s.id
+        WHERE s.classId = :classId
+        ORDER BY s.date DESC, s.id DESC
+        LIMIT 1
+        """
+    )
+    suspend fun getLatestBitmapByClass(classId: Long): AttendanceBitmapEntity?
     
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
-    suspend fun insertRecord(record: AttendanceRecordEntity): Long
+    /** Statuses of one session, read as a single row and decoded on first access. */
+    suspend fun getSessionStatuses(sessionId: Long): PackedStatuses? =
+        getBitmapBySession(sessionId)?.let { PackedStatuses(it) }
+    
+    // Draft queries
+    @Query("SELECT * FROM attendance_drafts WHERE classId = :classId")
+    suspend fun getDraft(classId: Long): AttendanceDraftEntity?
     
     @Insert(onConflict = OnConflictStrategy.REPLACE)
-    suspend fun insertRecords(records: List<AttendanceRecordEntity>)
+    suspend fun upsertDraft(draft: AttendanceDraftEntity)
     
-    @Update
-    suspend fun updateRecord(record: AttendanceRecordEntity)
+    @Query("DELETE FROM attendance_drafts WHERE classId = :classId")
+    suspend fun deleteDraft(classId: Long)
     
-    @Delete
-    suspend fun deleteRecord(record: AttendanceRecordEntity)
+    // Report queries
+    @Query(
+        """
+        SELECT s.*,
+            c.id AS class_id, c.branch AS class_branch, c.semester AS class_semester,
+            c.section AS class_section, c.subject AS class_subject, c.createdAt AS class_createdAt,
+            b.studentIds AS bitmap_studentIds, b.statuses AS bitmap_statuses
+        FROM attendance_sessions s
+        INNER JOIN classes c ON c.id = s.classId
+        LEFT JOIN attendance_bitmaps b ON b.sessionId = s.id
+        WHERE s.id = :sessionId
+        """
+    )
+    suspend fun getSessionReportHeader(sessionId: Long): SessionReportHeader?
+    
+    // Served in index order by the (classId, rollKey, name) index on students
+    @Query("SELECT * FROM students WHERE classId = :classId ORDER BY rollKey, name")
+    suspend fun getReportRoster(classId: Long): List<StudentEntity>
+    
+    /**
+     * Loads a session's report in one transaction: the joined session/class/bitmap row,
+     * then the class roster, with statuses aligned to roster order.
+     */
+    @Transaction
+    suspend fun getSessionReport(sessionId: Long): SessionReport? {
+        val header = getSessionReportHeader(sessionId) ?: return null
+        val roster = getReportRoster(header.session.classId)
+        val packed = if (header.studentIds != null && header.statuses != null) {
+            PackedStatuses(AttendanceBitmapEntity(sessionId, header.studentIds, header.statuses))
+        } else null
+        val statuses = ByteArray(roster.size)
+        if (packed != null) {
+            for (index in roster.indices) statuses[index] = packed.codeOf(roster[index].id)
+        }
+        return SessionReport(header.session, header.classEntity, roster, statuses)
+    }
     
-    @Query("DELETE FROM attendance_records WHERE sessionId = :sessionId")
-    suspend fun deleteRecordsBySession(sessionId: Long)
+    /**
+     * Writes a session and its packed statuses in one transaction, and drops the class's
+     * draft in the same one. [statuses] holds one status code per entry of [students].
+     * If a session with the same key was already saved, its id is returned and nothing else is written.
+     */
+    @Transaction
+    suspend fun saveSession(
+        session: AttendanceSessionEntity,
+        students: List<StudentEntity>,
+        statuses: ByteArray
+    ): Long {
+        deleteDraft(session.classId)
+        session.sessionKey?.let { key ->
+            getSessionIdByKey(key)?.let { return it }
+        }
+        val sessionId = insertSession(session)
+        insertBitmap(PackedStatuses.pack(sessionId, students, statuses))
+        return sessionId
+    }
 }
@@ -1,15 +1,18 @@
 package com.simpleattendance.data.local.dao
 
 import androidx.room.*
+import com.simpleattendance.data.local.RosterDiff
+import com.simpleattendance.data.local.entity.ClassEntity
 import com.simpleattendance.data.local.entity.StudentEntity
 import kotlinx.coroutines.flow.Flow
 
 @Dao
 interface StudentDao {
-    @Query("SELECT * FROM students WHERE classId = :classId ORDER BY rollNo, name")
+    // Register order: rolls compared by their natural key, served by the (classId, rollKey, name) index
+    @Query("SELECT * FROM students WHERE classId = :classId ORDER BY rollKey, name")
     fun getStudentsByClass(classId: Long): Flow<List<StudentEntity>>
     
-    @Query("SELECT * FROM students WHERE classId = :classId ORDER BY rollNo, name")
+    @Query("SELECT * FROM students WHERE classId = :classId ORDER BY rollKey, name")
     suspend fun getStudentsByClassSync(classId: Long): List<StudentEntity>
     
     @Query("SELECT * FROM students WHERE id = :id")
@@ -24,9 +27,42 @@ interface StudentDao {
     @Update
     suspend fun updateStudent(student: StudentEntity)
     
+    @Update
+    suspend fun updateStudents(students: List<StudentEntity>)
+    
     @Delete
     suspend fun deleteStudent(student: StudentEntity)
     
+    @Delete
+    suspend fun deleteStudents(students: List<StudentEntity>)
+    
     @Query("DELETE FROM students WHERE classId = :classId")
     suspend fun deleteStudentsByClass(classId: Long)
+    
+    /**
+     * Replaces the roster of [classId] with [incoming] while keeping the ids of matched
+     * students, so their attendance records are not cascaded away.
+     * Only the rows that actually changed are written.
+     */
+    @Transaction
+    suspend fun mergeRoster(classId: Long, incoming: List<StudentEntity>): RosterDiff {
+        val diff = RosterDiff.compute(classId, getStudentsByClassSync(classId), incoming)
+        if (diff.deletes.isNotEmpty()) deleteStudents(diff.deletes)
+        if (diff.updates.isNotEmpty()) updateStudents(diff.updates)
+        if (diff.inserts.isNotEmpty()) insertStudents(diff.inserts)
+        return diff
+    }
+    
+    @Update
+    suspend fun updateClass(classEntity: ClassEntity)
+    
+    /**
+     * Saves an edited class: its header and its merged roster are written in one
+     * transaction, so a failed merge leaves the header unchanged too.
+     */
+    @Transaction
+    suspend fun updateClassAndMergeRoster(classEntity: ClassEntity, incoming: List<StudentEntity>): RosterDiff {
+        updateClass(classEntity)
+        return mergeRoster(classEntity.id, incoming)
+    }
 }
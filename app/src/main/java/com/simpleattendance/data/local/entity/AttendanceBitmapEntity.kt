@@ -0,0 +1,28 @@
+package com.simpleattendance.data.local.entity
+
+import androidx.room.Entity
+import androidx.room.ForeignKey
+import androidx.room.PrimaryKey
+
+/**
+ * Every status of one session packed into two blobs: the roster snapshot as
+ * delta-encoded student ids, and 2 bits per roster position for the status.
+ * See [com.simpleattendance.data.local.PackedStatuses] for the format.
+ */
+@Entity(
+    tableName = "attendance_bitmaps",
+    foreignKeys = [
+        ForeignKey(
+            entity = AttendanceSessionEntity::class,
+            parentColumns = ["id"],
+            childColumns = ["sessionId"],
+            onDelete = ForeignKey.CASCADE
+        )
+    ]
+)
+class AttendanceBitmapEntity(
+    @PrimaryKey
+    val sessionId: Long,
+    val studentIds: ByteArray,
+    val statuses: ByteArray
+)
@@ -0,0 +1,32 @@
+package com.simpleattendance.data.local.entity
+
+import androidx.room.Entity
+import androidx.room.ForeignKey
+import androidx.room.PrimaryKey
+
+/**
+ * The in-progress roll call of one class, kept so marks survive the process being killed.
+ * Statuses use the [com.simpleattendance.data.local.PackedStatuses] format, keyed by student
+ * id rather than position, so a restore does not depend on sort order. At most one draft
+ * exists per class, and saving the session deletes it in the same transaction.
+ */
+@Entity(
+    tableName = "attendance_drafts",
+    foreignKeys = [
+        ForeignKey(
+            entity = ClassEntity::class,
+            parentColumns = ["id"],
+            childColumns = ["classId"],
+            onDelete = ForeignKey.CASCADE
+        )
+    ]
+)
+class AttendanceDraftEntity(
+    @PrimaryKey
+    val classId: Long,
+    val sessionKey: String, // Carried over so a restored roll call saves idempotently
+    val studentIds: ByteArray,
+    val statuses: ByteArray,
+    val currentStudentId: Long,
+    val updatedAt: Long = System.currentTimeMillis()
+)
@@ -1,32 +0,0 @@
-package com.simpleattendance.data.local.entity
-
-import androidx.room.Entity
-import androidx.room.ForeignKey
-import androidx.room.Index
-import androidx.room.PrimaryKey
-
-@Entity(
-    tableName = "attendance_records",
-    foreignKeys = [
-        ForeignKey(
-            entity = AttendanceSessionEntity::class,
-            parentColumns = ["id"],
-            childColumns = ["sessionId"],
-            onDelete = ForeignKey.CASCADE
-        ),
-        ForeignKey(
-            entity = StudentEntity::class,
-            parentColumns = ["id"],
-            childColumns = ["studentId"],
-            onDelete = ForeignKey.CASCADE
-        )
-    ],
-    indices = [Index("sessionId"), Index("studentId")]
-)
-data class AttendanceRecordEntity(
-    @PrimaryKey(autoGenerate = true)
-    val id: Long = 0,
-    val sessionId: Long,
-    val studentId: Long,
-    val status: String // "P" or "A"
-)
@@ -15,7 +15,12 @@ import androidx.room.PrimaryKey
             onDelete = ForeignKey.CASCADE
         )
     ],
-    indices = [Index("classId")]
+    indices = [
+        // History pages walk (date, id); id is the rowid, so both indexes already end in it
+        Index(value = ["classId", "date"]),
+        Index("date"),
+        Index(value = ["sessionKey"], unique = true)
+    ]
 )
 data class AttendanceSessionEntity(
     @PrimaryKey(autoGenerate = true)
@@ -24,7 +29,8 @@ data class AttendanceSessionEntity(
     val date: Long = System.currentTimeMillis(),
     val presentCount: Int = 0,
     val absentCount: Int = 0,
-    val totalCount: Int = 0
+    val totalCount: Int = 0,
+    val sessionKey: String? = null // Client-generated, makes repeated saves idempotent
 ) {
     val percentage: Float
         get() = if (totalCount > 0) (presentCount.toFloat() / totalCount) * 100 else 0f
@@ -1,9 +1,11 @@
 package com.simpleattendance.data.local.entity
 
+import androidx.room.ColumnInfo
 import androidx.room.Entity
 import androidx.room.ForeignKey
 import androidx.room.Index
 import androidx.room.PrimaryKey
+import com.simpleattendance.data.local.RollKey
 
 @Entity(
     tableName = "students",
@@ -15,14 +17,18 @@ import androidx.room.PrimaryKey
             onDelete = ForeignKey.CASCADE
         )
     ],
-    indices = [Index("classId")]
+    // Matches the roster ORDER BY so class lists are read in index order without a sort
+    indices = [Index(value = ["classId", "rollKey", "name"])]
 )
 data class StudentEntity(
     @PrimaryKey(autoGenerate = true)
     val id: Long = 0,
     val classId: Long,
     val rollNo: String,
-    val name: String
+    val name: String,
+    // Natural-order key for rollNo, computed when the row is built; see RollKey
+    @ColumnInfo(defaultValue = "")
+    val rollKey: String = RollKey.of(rollNo)
 ) {
     val displayName: String
         get() = if (rollNo.isNotEmpty()) "$rollNo - $name" else name
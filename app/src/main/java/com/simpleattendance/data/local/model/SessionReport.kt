@@ -0,0 +1,30 @@
+package com.simpleattendance.data.local.model
+
+import androidx.room.ColumnInfo
+import androidx.room.Embedded
+import com.simpleattendance.data.local.entity.AttendanceSessionEntity
+import com.simpleattendance.data.local.entity.ClassEntity
+import com.simpleattendance.data.local.entity.StudentEntity
+
+/** Session, class and packed statuses of one session, read as a single joined row. */
+class SessionReportHeader(
+    @Embedded
+    val session: AttendanceSessionEntity,
+    @Embedded(prefix = "class_")
+    val classEntity: ClassEntity,
+    @ColumnInfo(name = "bitmap_studentIds")
+    val studentIds: ByteArray?,
+    @ColumnInfo(name = "bitmap_statuses")
+    val statuses: ByteArray?
+)
+
+/**
+ * Everything the report screen needs for one session.
+ * [statuses] holds one status code per entry of [roster], which is in class-list order.
+ */
+class SessionReport(
+    val session: AttendanceSessionEntity,
+    val classEntity: ClassEntity,
+    val roster: List<StudentEntity>,
+    val statuses: ByteArray
+)
@@ -0,0 +1,19 @@
+package com.simpleattendance.data.local.model
+
+import androidx.room.Embedded
+import com.simpleattendance.data.local.entity.AttendanceSessionEntity
+import com.simpleattendance.data.local.entity.ClassEntity
+
+/** A session joined to its class in SQL, as listed on the History screen. */
+data class SessionWithClass(
+    @Embedded
+    val session: AttendanceSessionEntity,
+    @Embedded(prefix = "class_")
+    val classEntity: ClassEntity?
+)
+
+/** Position of a session in History order, used as the keyset cursor between pages. */
+data class SessionKey(
+    val date: Long,
+    val id: Long
+)
@@ -1,12 +1,17 @@
 package com.simpleattendance.data.repository
 
+import com.simpleattendance.data.local.PackedStatuses
+import com.simpleattendance.data.local.RosterDiff
 import com.simpleattendance.data.local.dao.ClassDao
 import com.simpleattendance.data.local.dao.StudentDao
 import com.simpleattendance.data.local.dao.AttendanceDao
 import com.simpleattendance.data.local.entity.ClassEntity
 import com.simpleattendance.data.local.entity.StudentEntity
 import com.simpleattendance.data.local.entity.AttendanceSessionEntity
-import com.simpleattendance.data.local.entity.AttendanceRecordEntity
+import com.simpleattendance.data.local.entity.AttendanceDraftEntity
+import com.simpleattendance.data.local.model.SessionKey
+import com.simpleattendance.data.local.model.SessionReport
+import com.simpleattendance.data.local.model.SessionWithClass
 import kotlinx.coroutines.flow.Flow
 import javax.inject.Inject
 import javax.inject.Singleton
@@ -39,28 +44,82 @@ class AttendanceRepository @Inject constructor(
     
     suspend fun deleteStudentsByClass(classId: Long) = studentDao.deleteStudentsByClass(classId)
     
+    suspend fun mergeRoster(classId: Long, students: List<StudentEntity>): RosterDiff =
+        studentDao.mergeRoster(classId, students)
+    
+    suspend fun updateClassAndMergeRoster(classEntity: ClassEntity, students: List<StudentEntity>): RosterDiff =
+        studentDao.updateClassAndMergeRoster(classEntity, students)
+    
     // Session operations
     fun getAllSessions(): Flow<List<AttendanceSessionEntity>> = attendanceDao.getAllSessions()
     
     fun getSessionsByClass(classId: Long): Flow<List<AttendanceSessionEntity>> = attendanceDao.getSessionsByClass(classId)
     
+    // History operations (classId = null means all classes)
+    suspend fun getSessionPage(
+        classId: Long?,
+        from: Long,
+        afterDate: Long,
+        afterId: Long,
+        limit: Int
+    ): List<SessionKey> = if (classId != null) {
+        attendanceDao.getSessionPageByClass(classId, from, afterDate, afterId, limit)
+    } else {
+        attendanceDao.getSessionPage(from, afterDate, afterId, limit)
+    }
+    
+    suspend fun getNewerSessionPage(
+        classId: Long?,
+        to: Long,
+        date: Long,
+        id: Long,
+        limit: Int
+    ): List<SessionKey> = if (classId != null) {
+        attendanceDao.getNewerSessionPageByClass(classId, to, date, id, limit)
+    } else {
+        attendanceDao.getNewerSessionPage(to, date, id, limit)
+    }
+    
+    fun getSessionWindow(
+        classId: Long?,
+        startDate: Long,
+        startId: Long,
+        endDate: Long,
+        endId: Long
+    ): Flow<List<SessionWithClass>> = if (classId != null) {
+        attendanceDao.getSessionWindowByClass(classId, startDate, startId, endDate, endId)
+    } else {
+        attendanceDao.getSessionWindow(startDate, startId, endDate, endId)
+    }
+    
     suspend fun getSessionById(id: Long): AttendanceSessionEntity? = attendanceDao.getSessionById(id)
     
     suspend fun insertSession(session: AttendanceSessionEntity): Long = attendanceDao.insertSession(session)
     
+    suspend fun saveSession(
+        session: AttendanceSessionEntity,
+        students: List<StudentEntity>,
+        statuses: ByteArray
+    ): Long = attendanceDao.saveSession(session, students, statuses)
+    
     suspend fun updateSession(session: AttendanceSessionEntity) = attendanceDao.updateSession(session)
     
     suspend fun deleteSession(session: AttendanceSessionEntity) = attendanceDao.deleteSession(session)
     
-    // Record operations
-    suspend fun getRecordsBySession(sessionId: Long): List<AttendanceRecordEntity> = 
-        attendanceDao.getRecordsBySession(sessionId)
+    // Draft operations
+    suspend fun getDraft(classId: Long): AttendanceDraftEntity? = attendanceDao.getDraft(classId)
+    
+    suspend fun saveDraft(draft: AttendanceDraftEntity) = attendanceDao.upsertDraft(draft)
+    
+    suspend fun deleteDraft(classId: Long) = attendanceDao.deleteDraft(classId)
     
-    suspend fun getPresentRecords(sessionId: Long): List<AttendanceRecordEntity> = 
-        attendanceDao.getPresentRecords(sessionId)
+    // Status operations
+    suspend fun getSessionStatuses(sessionId: Long): PackedStatuses? =
+        attendanceDao.getSessionStatuses(sessionId)
     
-    suspend fun getAbsentRecords(sessionId: Long): List<AttendanceRecordEntity> = 
-        attendanceDao.getAbsentRecords(sessionId)
+    suspend fun getLatestSessionStatuses(classId: Long): PackedStatuses? =
+        attendanceDao.getLatestBitmapByClass(classId)?.let { PackedStatuses(it) }
     
-    suspend fun insertRecords(records: List<AttendanceRecordEntity>) = attendanceDao.insertRecords(records)
+    // Report operations
+    suspend fun getSessionReport(sessionId: Long): SessionReport? = attendanceDao.getSessionReport(sessionId)
 }
@@ -0,0 +1,48 @@
+package com.simpleattendance.data.repository
+
+import android.content.ComponentCallbacks2
+import android.content.Context
+import android.content.res.Configuration
+import android.util.LruCache
+import com.simpleattendance.data.local.model.SessionReport
+import dagger.hilt.android.qualifiers.ApplicationContext
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Hands a just-saved session from the attendance screen to the report screen without
+ * a database round-trip. Entries are taken once, the cache is small, and it empties
+ * itself when the system asks for memory back.
+ */
+@Singleton
+class SessionResultCache @Inject constructor(
+    @ApplicationContext context: Context
+) : ComponentCallbacks2 {
+
+    private val cache = LruCache<Long, SessionReport>(MAX_ENTRIES)
+
+    init {
+        context.registerComponentCallbacks(this)
+    }
+
+    fun put(report: SessionReport) {
+        cache.put(report.session.id, report)
+    }
+
+    /** Returns and removes the cached result for [sessionId], if still present. */
+    fun take(sessionId: Long): SessionReport? = cache.remove(sessionId)
+
+    override fun onTrimMemory(level: Int) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) cache.evictAll()
+    }
+
+    override fun onLowMemory() {
+        cache.evictAll()
+    }
+
+    override fun onConfigurationChanged(newConfig: Configuration) = Unit
+
+    companion object {
+        private const val MAX_ENTRIES = 4
+    }
+}
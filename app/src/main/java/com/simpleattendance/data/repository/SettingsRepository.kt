@@ -1,10 +1,22 @@
 package com.simpleattendance.data.repository
 
+import android.content.Context
+import androidx.appcompat.app.AppCompatDelegate
 import androidx.datastore.core.DataStore
 import androidx.datastore.preferences.core.*
+import com.simpleattendance.di.ApplicationScope
+import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
 import kotlinx.coroutines.flow.catch
+import kotlinx.coroutines.flow.launchIn
 import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.onEach
+import java.util.concurrent.atomic.AtomicBoolean
 import javax.inject.Inject
 import javax.inject.Singleton
 
@@ -13,12 +25,15 @@ data class UserSettings(
     val hapticsEnabled: Boolean = true,
     val numberingMode: String = "relative", // "absolute" or "relative"
     val reportTemplate: String = "both", // "both", "absent_only", or "present_only"
-    val attendanceMode: String = "both" // "both", "swipe", or "buttons"
+    val attendanceMode: String = "both", // "both", "swipe", "buttons", or "absentees"
+    val rapidMode: Boolean = false // Skip card animations while marking
 )
 
 @Singleton
 class SettingsRepository @Inject constructor(
-    private val dataStore: DataStore<Preferences>
+    @ApplicationContext context: Context,
+    private val dataStore: DataStore<Preferences>,
+    @ApplicationScope private val scope: CoroutineScope
 ) {
     private object Keys {
         val THEME = stringPreferencesKey("theme")
@@ -26,6 +41,7 @@ class SettingsRepository @Inject constructor(
         val NUMBERING_MODE = stringPreferencesKey("numbering_mode")
         val REPORT_TEMPLATE = stringPreferencesKey("report_template")
         val ATTENDANCE_MODE = stringPreferencesKey("attendance_mode")
+        val RAPID_MODE = booleanPreferencesKey("rapid_mode")
     }
     
     val settings: Flow<UserSettings> = dataStore.data
@@ -36,12 +52,59 @@ class SettingsRepository @Inject constructor(
                 hapticsEnabled = preferences[Keys.HAPTICS_ENABLED] ?: true,
                 numberingMode = preferences[Keys.NUMBERING_MODE] ?: "relative",
                 reportTemplate = preferences[Keys.REPORT_TEMPLATE] ?: "both",
-                attendanceMode = preferences[Keys.ATTENDANCE_MODE] ?: "both"
+                attendanceMode = preferences[Keys.ATTENDANCE_MODE] ?: "both",
+                rapidMode = preferences[Keys.RAPID_MODE] ?: false
             )
         }
     
+    private val started = AtomicBoolean(false)
+    private val initialLoad = CompletableDeferred<Unit>()
+    private val _snapshot = MutableStateFlow(UserSettings())
+    
+    /**
+     * Latest settings, decoded once per change and shared by every screen.
+     * Holds defaults until [start] has read the store.
+     */
+    val snapshot: StateFlow<UserSettings> = _snapshot.asStateFlow()
+    
+    // Copy of the theme's night mode in SharedPreferences, so cold start can apply it
+    // with one small synchronous read instead of waiting on DataStore
+    private val startupPreferences = context.getSharedPreferences(STARTUP_PREFERENCES, Context.MODE_PRIVATE)
+    
+    /** Night mode for the saved theme, read from the startup mirror without touching DataStore. */
+    val startupNightMode: Int
+        get() = startupPreferences.getInt(KEY_NIGHT_MODE, AppCompatDelegate.MODE_NIGHT_FOLLOW_SYSTEM)
+    
+    /** Current settings, waiting for the first load if [start] has not finished reading the store yet. */
+    suspend fun current(): UserSettings {
+        start()
+        initialLoad.await()
+        return _snapshot.value
+    }
+    
+    /** Starts keeping [snapshot] current. Called from RollCallApplication; later calls do nothing. */
+    fun start() {
+        if (!started.compareAndSet(false, true)) return
+        settings
+            .onEach { latest ->
+                _snapshot.value = latest
+                // Also fills the mirror for a theme saved before it existed
+                mirrorNightMode(latest.theme)
+                initialLoad.complete(Unit)
+            }
+            .launchIn(scope)
+    }
+    
     suspend fun setTheme(theme: String) {
         dataStore.edit { it[Keys.THEME] = theme }
+        mirrorNightMode(theme)
+    }
+    
+    private fun mirrorNightMode(theme: String) {
+        val nightMode = nightModeFor(theme)
+        if (startupPreferences.getInt(KEY_NIGHT_MODE, AppCompatDelegate.MODE_NIGHT_FOLLOW_SYSTEM) != nightMode) {
+            startupPreferences.edit().putInt(KEY_NIGHT_MODE, nightMode).apply()
+        }
     }
     
     suspend fun setHapticsEnabled(enabled: Boolean) {
@@ -59,4 +122,19 @@ class SettingsRepository @Inject constructor(
     suspend fun setAttendanceMode(mode: String) {
         dataStore.edit { it[Keys.ATTENDANCE_MODE] = mode }
     }
+    
+    suspend fun setRapidMode(enabled: Boolean) {
+        dataStore.edit { it[Keys.RAPID_MODE] = enabled }
+    }
+    
+    companion object {
+        private const val STARTUP_PREFERENCES = "startup"
+        private const val KEY_NIGHT_MODE = "night_mode"
+        
+        fun nightModeFor(theme: String): Int = when (theme) {
+            "light" -> AppCompatDelegate.MODE_NIGHT_NO
+            "dark" -> AppCompatDelegate.MODE_NIGHT_YES
+            else -> AppCompatDelegate.MODE_NIGHT_FOLLOW_SYSTEM
+        }
+    }
 }
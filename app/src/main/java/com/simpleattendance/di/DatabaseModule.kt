@@ -24,7 +24,9 @@ object DatabaseModule {
             context,
             AppDatabase::class.java,
             "rollcall.db"
-        ).build()
+        )
+            .addMigrations(*AppDatabase.ALL_MIGRATIONS)
+            .build()
     }
     
     @Provides
@@ -1,18 +1,23 @@
 package com.simpleattendance.ui.attendance
 
-import android.animation.ObjectAnimator
 import android.content.Intent
 import android.os.Bundle
 import android.view.View
 import android.view.animation.AccelerateDecelerateInterpolator
+import android.view.inputmethod.EditorInfo
+import android.widget.Toast
 import androidx.activity.viewModels
 import androidx.appcompat.app.AppCompatActivity
 import androidx.core.content.ContextCompat
+import androidx.core.widget.doAfterTextChanged
 import androidx.lifecycle.Lifecycle
 import androidx.lifecycle.lifecycleScope
 import androidx.lifecycle.repeatOnLifecycle
+import androidx.recyclerview.widget.GridLayoutManager
+import com.google.android.material.chip.Chip
 import com.google.android.material.dialog.MaterialAlertDialogBuilder
 import com.simpleattendance.R
+import com.simpleattendance.data.local.AttendanceStatus
 import com.simpleattendance.databinding.ActivityAttendanceBinding
 import com.simpleattendance.ui.report.ReportActivity
 import com.simpleattendance.util.AnimationUtils
@@ -34,7 +39,22 @@ class AttendanceActivity : AppCompatActivity() {
     lateinit var settingsRepository: com.simpleattendance.data.repository.SettingsRepository
     
     private var hasShownCompleteDialog = false
-    private var currentFillAnimator: ObjectAnimator? = null
+    private lateinit var swipeController: CardSwipeController
+    
+    // Roster position bound to the card; marks are attached to this, not to whatever is current later
+    private var shownIndex = -1
+    private var rapidMode = false
+    private var absenteeMode = false
+    private var attendanceMode = "both"
+    private var rosterOpen = false
+    private var selectionCount = 0
+    // Set on opening the overview, so the first list it shows scrolls to the current student
+    private var scrollRosterToCurrent = false
+    private lateinit var rosterAdapter: RosterAdapter
+    private lateinit var rosterLayoutManager: GridLayoutManager
+    private var cardEntering = false
+    private val cardEntryInterpolator = AccelerateDecelerateInterpolator()
+    private val cardEntryEnd = Runnable { cardEntering = false }
     
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
@@ -48,6 +68,9 @@ class AttendanceActivity : AppCompatActivity() {
         
         setupToolbar()
         setupButtons()
+        setupSwipeGesture()
+        setupAbsenteeEntry()
+        setupRoster()
         observeState()
         observeSettings()
     }
@@ -60,6 +83,25 @@ class AttendanceActivity : AppCompatActivity() {
         
         binding.toolbar.setOnMenuItemClickListener { menuItem ->
             when (menuItem.itemId) {
+                R.id.action_undo -> {
+                    undoLastMark()
+                    true
+                }
+                R.id.action_redo -> {
+                    hapticUtils.lightTap()
+                    viewModel.redo()
+                    true
+                }
+                R.id.action_roster -> {
+                    hapticUtils.lightTap()
+                    viewModel.setRosterOpen(!rosterOpen)
+                    true
+                }
+                R.id.action_prefill -> {
+                    hapticUtils.lightTap()
+                    prefillFromLastSession()
+                    true
+                }
                 R.id.action_reset -> {
                     hapticUtils.heavyImpact()
                     showResetConfirmation()
@@ -75,6 +117,35 @@ class AttendanceActivity : AppCompatActivity() {
         }
     }
     
+    private fun undoLastMark() {
+        if (!viewModel.uiState.value.canUndo) return
+        hapticUtils.lightTap()
+        viewModel.undo()
+    }
+    
+    private fun updateUndoRedoActions(state: UndoRedoState) {
+        val menu = binding.toolbar.menu
+        menu.findItem(R.id.action_undo)?.setEnabledWithAlpha(state.canUndo)
+        menu.findItem(R.id.action_redo)?.setEnabledWithAlpha(state.canRedo)
+    }
+    
+    private fun android.view.MenuItem.setEnabledWithAlpha(enabled: Boolean) {
+        isEnabled = enabled
+        icon?.mutate()?.alpha = if (enabled) 255 else 97
+    }
+    
+    private fun prefillFromLastSession() {
+        lifecycleScope.launch {
+            val filled = viewModel.prefillFromLastSession()
+            val message = when {
+                filled < 0 -> "No earlier session for this class"
+                filled == 0 -> "Everyone is already marked"
+                else -> "Filled $filled students from the last session. Change only the ones that differ."
+            }
+            Toast.makeText(this@AttendanceActivity, message, Toast.LENGTH_LONG).show()
+        }
+    }
+    
     private fun showResetConfirmation() {
         MaterialAlertDialogBuilder(this)
             .setTitle("Reset Attendance?")
@@ -101,28 +172,18 @@ class AttendanceActivity : AppCompatActivity() {
     }
     
     private fun setupButtons() {
-        // Present button - light haptic with spring scale and glass fill animation
+        // Present button - light haptic with spring scale; the mark lands before any animation
         binding.presentButton.setOnClickListener {
             hapticUtils.lightTap()
             AnimationUtils.applySpringScale(it)
-            animateButtonFill(binding.presentFill, binding.presentText, true)
-            animateNameFlash(true) // Flash name green
-            // Delay moving to next student so user sees the feedback
-            binding.studentCard.postDelayed({
-                viewModel.markPresent()
-            }, 250)
+            mark(isPresent = true, fromSwipe = false)
         }
         
-        // Absent button - strong haptic with spring scale and glass fill animation
+        // Absent button - strong haptic with spring scale
         binding.absentButton.setOnClickListener {
             hapticUtils.heavyImpact()
             AnimationUtils.applySpringScale(it)
-            animateButtonFill(binding.absentFill, binding.absentText, false)
-            animateNameFlash(false) // Flash name red
-            // Delay moving to next student so user sees the feedback
-            binding.studentCard.postDelayed({
-                viewModel.markAbsent()
-            }, 250)
+            mark(isPresent = false, fromSwipe = false)
         }
         
         binding.previousButton.setOnClickListener {
@@ -144,220 +205,230 @@ class AttendanceActivity : AppCompatActivity() {
         }
     }
     
-    @android.annotation.SuppressLint("ClickableViewAccessibility")
     private fun setupSwipeGesture() {
-        var startX = 0f
-        var startY = 0f
-        var initialX = 0f
-        var initialY = 0f
-        val swipeThreshold = 300f // Swipe threshold in pixels
-        
-        binding.studentCard.setOnTouchListener { view, event ->
-            when (event.action) {
-                android.view.MotionEvent.ACTION_DOWN -> {
-                    startX = event.rawX
-                    startY = event.rawY
-                    initialX = view.translationX
-                    initialY = view.translationY
-                    true
-                }
-                android.view.MotionEvent.ACTION_MOVE -> {
-                    val dx = event.rawX - startX
-                    val dy = event.rawY - startY
-                    
-                    view.translationX = initialX + dx
-                    view.translationY = initialY + dy
-                    view.rotation = dx * 0.05f // Dynamic rotation angle
-                    
-                    // Dynamic border tint based on drag direction
-                    if (dx > 50f) {
-                        binding.studentCard.strokeColor = ContextCompat.getColor(this, R.color.success_green)
-                        binding.studentName.setTextColor(ContextCompat.getColor(this, R.color.success_green))
-                    } else if (dx < -50f) {
-                        binding.studentCard.strokeColor = ContextCompat.getColor(this, R.color.error_red)
-                        binding.studentName.setTextColor(ContextCompat.getColor(this, R.color.error_red))
-                    } else {
-                        val state = viewModel.uiState.value
-                        state.currentStudent?.let { student ->
-                            updateCardVisualsForStatus(student.status)
-                        }
-                    }
-                    true
-                }
-                android.view.MotionEvent.ACTION_UP -> {
-                    val dx = event.rawX - startX
-                    if (dx > swipeThreshold) {
-                        animateSwipeAndMark(true)
-                    } else if (dx < -swipeThreshold) {
-                        animateSwipeAndMark(false)
-                    } else {
-                        // Rebound center with smooth interpolation
-                        view.animate()
-                            .translationX(0f)
-                            .translationY(0f)
-                            .rotation(0f)
-                            .setDuration(250)
-                            .setInterpolator(AccelerateDecelerateInterpolator())
-                            .withEndAction {
-                                val state = viewModel.uiState.value
-                                state.currentStudent?.let { student ->
-                                    updateCardVisualsForStatus(student.status)
-                                }
-                            }
-                            .start()
-                    }
-                    true
-                }
-                else -> false
-            }
-        }
+        // Installed once; observeSettings only switches it on or off
+        swipeController = CardSwipeController(
+            card = binding.studentCard,
+            name = binding.studentName,
+            onSwipe = { isPresent ->
+                if (isPresent) hapticUtils.lightTap() else hapticUtils.heavyImpact()
+                mark(isPresent, fromSwipe = true)
+            },
+            // Pulling the card down takes back the last mark
+            onPullDown = { undoLastMark() }
+        )
+        swipeController.attach()
     }
-
-    private fun updateCardVisualsForStatus(status: String?) {
-        when (status) {
-            "P" -> {
-                binding.studentName.setTextColor(ContextCompat.getColor(this, R.color.success_green))
-                binding.studentCard.strokeColor = ContextCompat.getColor(this, R.color.success_green)
-            }
-            "A" -> {
-                binding.studentName.setTextColor(ContextCompat.getColor(this, R.color.error_red))
-                binding.studentCard.strokeColor = ContextCompat.getColor(this, R.color.error_red)
-            }
-            else -> {
-                binding.studentName.setTextColor(ContextCompat.getColor(this, R.color.text_primary))
-                binding.studentCard.strokeColor = ContextCompat.getColor(this, R.color.glass_border)
-            }
+    
+    private fun setupAbsenteeEntry() {
+        binding.absenteeInput.doAfterTextChanged { text ->
+            binding.absenteeInputLayout.error = null
+            showRollSuggestions(lastToken(text?.toString().orEmpty()))
+        }
+        binding.absenteeInput.setOnEditorActionListener { _, actionId, _ ->
+            if (actionId == EditorInfo.IME_ACTION_DONE) {
+                submitAbsentees()
+                true
+            } else false
+        }
+        binding.absenteeAddButton.setOnClickListener {
+            AnimationUtils.applySpringScale(it)
+            submitAbsentees()
         }
     }
-
-    private fun animateSwipeAndMark(isPresent: Boolean) {
-        val screenWidth = resources.displayMetrics.widthPixels.toFloat()
-        val targetX = if (isPresent) screenWidth else -screenWidth
-        
-        binding.studentCard.animate()
-            .translationX(targetX)
-            .alpha(0f)
-            .setDuration(250)
-            .setInterpolator(AccelerateDecelerateInterpolator())
-            .withEndAction {
-                if (isPresent) {
-                    hapticUtils.lightTap()
-                    viewModel.markPresent()
-                } else {
+    
+    // The roll number being typed: whatever follows the last separator, unless it is a range
+    private fun lastToken(text: String): String {
+        val token = text.substring(text.indexOfLast { it == ',' || it == ';' || it.isWhitespace() } + 1)
+        return if (token.indexOf('-', startIndex = 1) > 0) "" else token
+    }
+    
+    private fun showRollSuggestions(prefix: String) {
+        val group = binding.absenteeSuggestions
+        group.removeAllViews()
+        for (suggestion in viewModel.rollSuggestions(prefix)) {
+            group.addView(Chip(this).apply {
+                text = "${suggestion.student.rollNo}  ${suggestion.student.name}"
+                isEnabled = suggestion.status != "A"
+                setOnClickListener {
                     hapticUtils.heavyImpact()
-                    viewModel.markAbsent()
+                    viewModel.markAbsentAt(suggestion.index)
+                    // Replace the partly typed roll number; anything typed before it stays
+                    val typed = binding.absenteeInput.text?.toString().orEmpty()
+                    binding.absenteeInput.setText(typed.dropLast(prefix.length))
+                    binding.absenteeInput.setSelection(binding.absenteeInput.length())
                 }
-                // Animate card back in from top
-                binding.studentCard.translationX = 0f
-                binding.studentCard.translationY = -200f
-                binding.studentCard.rotation = 0f
-                binding.studentCard.animate()
-                    .translationY(0f)
-                    .alpha(1f)
-                    .setDuration(300)
-                    .setInterpolator(AccelerateDecelerateInterpolator())
-                    .start()
-            }
-            .start()
+            })
+        }
     }
     
-    private fun animateNameFlash(isPresent: Boolean) {
-        val color = if (isPresent) getColor(R.color.success_green) else getColor(R.color.error_red)
-        
-        // Smooth color transition on name
-        binding.studentName.setTextColor(color)
-        
-        // Smooth card border color transition
-        binding.studentCard.strokeColor = color
-        
-        // Trigger progress bar glow animation
-        animateProgressGlow(isPresent)
+    private fun submitAbsentees() {
+        val input = binding.absenteeInput.text?.toString().orEmpty()
+        if (input.isBlank()) return
+        val resolution = viewModel.markAbsentees(input)
+        if (resolution.positions.isNotEmpty()) hapticUtils.heavyImpact()
+        if (resolution.unmatched.isEmpty()) {
+            binding.absenteeInput.setText("")
+        } else {
+            // Keep only what matched nobody, so it can be corrected in place
+            binding.absenteeInput.setText(resolution.unmatched.joinToString(", "))
+            binding.absenteeInput.setSelection(binding.absenteeInput.length())
+            binding.absenteeInputLayout.error = "No student with roll ${resolution.unmatched.joinToString(", ")}"
+        }
     }
     
-    private fun animateProgressGlow(isPresent: Boolean) {
-        val color = if (isPresent) getColor(R.color.success_green) else getColor(R.color.error_red)
-        
-        // Tint the glow with the action color
-        binding.progressGlow.background.setTint(color)
-        
-        // Get the current width of the progress bar container
-        val trackWidth = binding.progressTrack.width.toFloat()
-        if (trackWidth <= 0) return
-        
-        // Smooth glow sweeping across the bar
-        binding.progressGlow.apply {
-            alpha = 0.5f
-            translationX = -width.toFloat()
-            animate()
-                .translationX(trackWidth)
-                .alpha(0f)
-                .setDuration(700)
-                .setInterpolator(AccelerateDecelerateInterpolator())
-                .start()
+    private fun bindAbsentees() {
+        val group = binding.absenteeChips
+        group.removeAllViews()
+        for (absentee in viewModel.absentees()) {
+            group.addView(Chip(this).apply {
+                text = absentee.student.rollNo.ifEmpty { absentee.student.name }
+                isCloseIconVisible = true
+                setOnCloseIconClickListener {
+                    hapticUtils.lightTap()
+                    viewModel.clearMarkAt(absentee.index)
+                }
+            })
         }
     }
     
-    private fun updateProgressBar(presentCount: Int, absentCount: Int, totalCount: Int) {
-        if (totalCount <= 0) return
-        
-        val trackWidth = binding.progressTrack.width
-        if (trackWidth <= 0) {
-            // Post to run after layout
-            binding.progressTrack.post {
-                updateProgressBar(presentCount, absentCount, totalCount)
+    private fun setupRoster() {
+        rosterAdapter = RosterAdapter(
+            context = this,
+            onCellClick = { cell -> onRosterCellClick(cell) },
+            onCellLongClick = { cell ->
+                hapticUtils.lightTap()
+                viewModel.toggleSelection(cell.student.id)
             }
-            return
+        )
+        rosterLayoutManager = GridLayoutManager(this, rosterColumns(grid = true))
+        binding.rosterList.apply {
+            layoutManager = rosterLayoutManager
+            adapter = rosterAdapter
+            // Cells have a fixed size and status changes arrive as payloads, so nothing here relayouts the list
+            setHasFixedSize(true)
+            // A grid shows many cells at once; keep enough spares that a fling does not inflate
+            recycledViewPool.setMaxRecycledViews(0, ROSTER_POOL_SIZE)
         }
         
-        val presentWidth = (presentCount.toFloat() / totalCount * trackWidth).toInt()
-        val absentWidth = (absentCount.toFloat() / totalCount * trackWidth).toInt()
+        binding.rosterSectionIndex.onSectionSelected = { position ->
+            rosterLayoutManager.scrollToPositionWithOffset(position, 0)
+        }
         
-        // Animate present bar width
-        binding.progressPresent.animate()
-            .setDuration(200)
-            .setInterpolator(AccelerateDecelerateInterpolator())
-            .setUpdateListener { animator ->
-                val params = binding.progressPresent.layoutParams
-                params.width = (presentWidth * animator.animatedFraction).toInt()
-                binding.progressPresent.layoutParams = params
+        binding.rosterLayoutButton.setOnClickListener {
+            hapticUtils.lightTap()
+            viewModel.setRosterGrid(!viewModel.isRosterGrid.value)
+        }
+        binding.rosterRemainingButton.setOnClickListener {
+            hapticUtils.lightTap()
+            viewModel.markRemainingPresent()
+        }
+        binding.rosterAbsentButton.setOnClickListener {
+            hapticUtils.heavyImpact()
+            viewModel.markSelection(isPresent = false)
+        }
+        binding.rosterPresentButton.setOnClickListener {
+            hapticUtils.lightTap()
+            viewModel.markSelection(isPresent = true)
+        }
+        binding.rosterClearButton.setOnClickListener {
+            hapticUtils.lightTap()
+            viewModel.clearSelection()
+        }
+    }
+    
+    /**
+     * While selecting, a tap adds or removes the student. Otherwise it opens them on the card,
+     * or in absentee mode toggles them on and off the absentee list.
+     */
+    private fun onRosterCellClick(cell: RosterCell) {
+        hapticUtils.lightTap()
+        when {
+            selectionCount > 0 -> viewModel.toggleSelection(cell.student.id)
+            absenteeMode -> {
+                if (cell.status == AttendanceStatus.ABSENT) viewModel.clearMarkAt(cell.index)
+                else viewModel.markAbsentAt(cell.index)
             }
-            .start()
-        
-        // Animate absent bar (positioned after present)
-        binding.progressAbsent.animate()
-            .setDuration(200)
-            .setInterpolator(AccelerateDecelerateInterpolator())
-            .setUpdateListener { animator ->
-                val params = binding.progressAbsent.layoutParams
-                params.width = (absentWidth * animator.animatedFraction).toInt()
-                binding.progressAbsent.layoutParams = params
-                binding.progressAbsent.translationX = presentWidth.toFloat()
+            else -> {
+                viewModel.goToStudent(cell.index)
+                viewModel.setRosterOpen(false)
             }
-            .start()
+        }
     }
     
-    private fun animateButtonFill(fillView: View, textView: View, isPresent: Boolean) {
-        // Cancel any running animation
-        currentFillAnimator?.cancel()
-        
-        // Smooth, relaxed fill animation (glass effect)
-        currentFillAnimator = ObjectAnimator.ofFloat(fillView, "alpha", 0f, 0.85f).apply {
-            duration = 350
-            interpolator = AccelerateDecelerateInterpolator()
-            start()
+    private fun rosterColumns(grid: Boolean): Int {
+        if (!grid) return 1
+        return (resources.configuration.screenWidthDp / ROSTER_CELL_MIN_WIDTH_DP).coerceAtLeast(2)
+    }
+    
+    private fun bindSelection(count: Int) {
+        selectionCount = count
+        val selecting = count > 0
+        binding.rosterHint.text = when {
+            selecting -> "$count selected"
+            absenteeMode -> "Tap a student to mark them absent, long-press to select"
+            else -> "Tap a student to open them, long-press to select"
+        }
+        val selectionVisibility = if (selecting) View.VISIBLE else View.GONE
+        binding.rosterAbsentButton.visibility = selectionVisibility
+        binding.rosterPresentButton.visibility = selectionVisibility
+        binding.rosterClearButton.visibility = selectionVisibility
+        binding.rosterRemainingButton.visibility = if (selecting) View.GONE else View.VISIBLE
+    }
+    
+    /**
+     * Applies a mark to the student on screen right away, then plays the feedback.
+     * Taps that come faster than the animations still each land on the student they were aimed at.
+     */
+    private fun mark(isPresent: Boolean, fromSwipe: Boolean) {
+        val index = shownIndex
+        if (isPresent) viewModel.markPresent(index) else viewModel.markAbsent(index)
+        binding.segmentedProgress.sweepGlow(isPresent)
+        playCardEntry(fromSwipe)
+    }
+    
+    /**
+     * Brings the card, already showing the next student, in from above. A mark made while
+     * the card is still entering retargets the running animation instead of restarting it.
+     * Rapid mode skips the animation and just puts the card back in place.
+     */
+    private fun playCardEntry(fromSwipe: Boolean) {
+        val card = binding.studentCard
+        if (rapidMode) {
+            card.animate().cancel()
+            cardEntering = false
+            card.translationX = 0f
+            card.translationY = 0f
+            card.rotation = 0f
+            card.alpha = 1f
+            return
         }
         
-        // Change text color to white
-        (textView as? android.widget.TextView)?.setTextColor(
-            ContextCompat.getColor(this, R.color.on_primary)
-        )
+        if (fromSwipe || !cardEntering) {
+            val offset = if (fromSwipe) SWIPE_ENTRY_OFFSET_DP else TAP_ENTRY_OFFSET_DP
+            card.translationX = 0f
+            card.translationY = -offset * resources.displayMetrics.density
+            card.rotation = 0f
+            card.alpha = if (fromSwipe) 0f else 0.6f
+        }
+        cardEntering = true
+        card.animate()
+            .translationX(0f)
+            .translationY(0f)
+            .rotation(0f)
+            .alpha(1f)
+            .setDuration(if (fromSwipe) 300 else 150)
+            .setInterpolator(cardEntryInterpolator)
+            .withEndAction(cardEntryEnd)
+            .start()
+    }
+    
+    private fun updateProgressBar(presentCount: Int, absentCount: Int, totalCount: Int) {
+        // Drawn on canvas, so a new count costs a redraw rather than a layout pass
+        binding.segmentedProgress.setCounts(presentCount, absentCount, totalCount)
     }
     
     private fun updateButtonVisuals(status: String?) {
-        // Cancel any running animation first
-        currentFillAnimator?.cancel()
-        currentFillAnimator = null
-        
         // Reset both buttons first
         binding.presentFill.alpha = 0f
         binding.absentFill.alpha = 0f
@@ -382,7 +453,18 @@ class AttendanceActivity : AppCompatActivity() {
         val state = viewModel.uiState.value
         val unmarkedCount = state.students.size - state.markedCount
         
-        if (unmarkedCount > 0) {
+        if (absenteeMode) {
+            // Everyone not entered as absent is saved as present
+            MaterialAlertDialogBuilder(this)
+                .setTitle("Save Attendance")
+                .setMessage("Present: ${state.presentCount + unmarkedCount}\nAbsent: ${state.absentCount}\n\nSave this attendance record?")
+                .setPositiveButton("Save") { _, _ ->
+                    hapticUtils.successPattern()
+                    viewModel.saveAttendance(remainingPresent = true)
+                }
+                .setNegativeButton("Cancel", null)
+                .show()
+        } else if (unmarkedCount > 0) {
             // Show warning for incomplete attendance
             MaterialAlertDialogBuilder(this)
                 .setTitle("Incomplete Attendance")
@@ -429,116 +511,171 @@ class AttendanceActivity : AppCompatActivity() {
     private fun observeState() {
         lifecycleScope.launch {
             repeatOnLifecycle(Lifecycle.State.STARTED) {
-                viewModel.uiState.collect { state ->
-                    // Loading
-                    if (state.isLoading) {
-                        binding.progressBar.visibility = View.VISIBLE
-                        binding.contentLayout.visibility = View.GONE
-                        return@collect
+                // One collector per slice, so each view group rebinds only when its inputs change
+                launch {
+                    viewModel.isLoading.collect { isLoading ->
+                        binding.progressBar.visibility = if (isLoading) View.VISIBLE else View.GONE
+                        binding.contentLayout.visibility = if (isLoading) View.GONE else View.VISIBLE
                     }
-                    
-                    binding.progressBar.visibility = View.GONE
-                    binding.contentLayout.visibility = View.VISIBLE
-                    
-                    // Class info
-                    state.classEntity?.let { classEntity ->
+                }
+                launch {
+                    viewModel.classEntity.collect { classEntity ->
                         binding.toolbarTitle.text = classEntity.displayName
                         binding.toolbarSubtitle.text = classEntity.subject
                     }
-                    
-                    // Current student
-                    state.currentStudent?.let { studentAttendance ->
-                        binding.studentName.text = studentAttendance.student.name
-                        binding.studentNumber.text = "${state.currentIndex + 1} / ${state.students.size}"
-                        binding.rollNumber.text = studentAttendance.student.rollNo.ifEmpty { "#${state.currentIndex + 1}" }
-                        
-                        // Update name color and card border based on status
-                        when (studentAttendance.status) {
-                            "P" -> {
-                                binding.studentName.setTextColor(getColor(R.color.success_green))
-                                binding.studentCard.strokeColor = getColor(R.color.success_green)
-                            }
-                            "A" -> {
-                                binding.studentName.setTextColor(getColor(R.color.error_red))
-                                binding.studentCard.strokeColor = getColor(R.color.error_red)
-                            }
-                            else -> {
-                                binding.studentName.setTextColor(getColor(R.color.text_primary))
-                                binding.studentCard.strokeColor = getColor(R.color.glass_border)
+                }
+                launch {
+                    viewModel.currentStudent.collect { slice -> bindCurrentStudent(slice) }
+                }
+                launch {
+                    viewModel.counters.collect { counters -> bindCounters(counters) }
+                }
+                launch {
+                    // Fires on the transition to all marked, and again if a reset starts over
+                    viewModel.allMarked.collect { allMarked ->
+                        // Absentee entry only marks everyone while saving, so it never prompts
+                        if (allMarked && !hasShownCompleteDialog && !absenteeMode) showCompletionDialog()
+                    }
+                }
+                launch {
+                    viewModel.undoRedo.collect { state -> updateUndoRedoActions(state) }
+                }
+                launch {
+                    viewModel.isRosterOpen.collect { open ->
+                        rosterOpen = open
+                        applyPanels()
+                        if (open) scrollRosterToCurrent = true
+                    }
+                }
+                launch {
+                    viewModel.isRosterGrid.collect { grid ->
+                        rosterLayoutManager.spanCount = rosterColumns(grid)
+                        binding.rosterLayoutButton.setImageResource(
+                            if (grid) R.drawable.ic_view_list else R.drawable.ic_grid_view
+                        )
+                    }
+                }
+                launch {
+                    // Only emits while the overview is open
+                    viewModel.roster.collect { cells ->
+                        rosterAdapter.submitList(cells) {
+                            if (scrollRosterToCurrent) {
+                                scrollRosterToCurrent = false
+                                rosterLayoutManager.scrollToPositionWithOffset(viewModel.uiState.value.currentIndex, 0)
                             }
                         }
-                        
-                        // Update A/P button visuals based on current student's status
-                        updateButtonVisuals(studentAttendance.status)
                     }
-                    
-                    // Progress
-                    val progressPercent = if (state.students.isNotEmpty()) {
-                        ((state.currentIndex + 1).toFloat() / state.students.size * 100).toInt()
-                    } else 0
-                    binding.progressText.text = "${state.markedCount}/${state.students.size} marked"
-                    
-                    // Update animated progress bar
-                    updateProgressBar(state.presentCount, state.absentCount, state.students.size)
-                    
-                    // Live stats row
-                    binding.livePresent.text = "${state.presentCount} Present"
-                    binding.liveAbsent.text = "${state.absentCount} Absent"
-                    val remaining = state.students.size - state.markedCount
-                    binding.liveRemaining.text = "$remaining Left"
-                    
-                    // Navigation buttons
-                    binding.previousButton.isEnabled = state.currentIndex > 0
-                    binding.nextButton.isEnabled = state.currentIndex < state.students.size - 1
-                    
-                    // Finish button - always enabled, can save anytime
-                    binding.finishButton.isEnabled = true
-                    binding.finishButton.alpha = 1f
-                    
-                    // Show completion dialog when all are marked
-                    if (state.allMarked && !hasShownCompleteDialog) {
-                        showCompletionDialog()
+                }
+                launch {
+                    viewModel.rosterSections.collect { sections ->
+                        binding.rosterSectionIndex.setSections(sections.labels, sections.positions)
                     }
-                    
-                    // Handle save complete
-                    state.savedSessionId?.let { sessionId ->
-                        navigateToReport(sessionId)
+                }
+                launch {
+                    viewModel.selectionCount.collect { count -> bindSelection(count) }
+                }
+                launch {
+                    viewModel.savedSessionId.collect { sessionId -> navigateToReport(sessionId) }
+                }
+                launch {
+                    viewModel.error.collect { message ->
+                        hapticUtils.errorPattern()
+                        Toast.makeText(this@AttendanceActivity, message, Toast.LENGTH_LONG).show()
+                        viewModel.clearError()
                     }
                 }
             }
         }
     }
-
+    
+    private fun bindCurrentStudent(slice: CurrentStudentSlice) {
+        val student = slice.attendance.student
+        shownIndex = slice.index
+        binding.studentName.text = student.name
+        binding.studentNumber.text = "${slice.index + 1} / ${slice.total}"
+        binding.rollNumber.text = student.rollNo.ifEmpty { "#${slice.index + 1}" }
+        
+        // Update name color and card border based on status
+        swipeController.restingStatus = slice.attendance.status
+        
+        // Update A/P button visuals based on current student's status
+        updateButtonVisuals(slice.attendance.status)
+        
+        // Navigation buttons
+        binding.previousButton.isEnabled = slice.index > 0
+        binding.nextButton.isEnabled = slice.index < slice.total - 1
+    }
+    
+    private fun bindCounters(counters: AttendanceCounters) {
+        binding.progressText.text = "${counters.markedCount}/${counters.total} marked"
+        
+        // Update animated progress bar
+        updateProgressBar(counters.presentCount, counters.absentCount, counters.total)
+        
+        // Live stats row
+        binding.livePresent.text = "${counters.presentCount} Present"
+        binding.liveAbsent.text = "${counters.absentCount} Absent"
+        binding.liveRemaining.text = "${counters.remaining} Left"
+        
+        // Every status change moves a counter, so this is also when the absentee list changes
+        if (absenteeMode) bindAbsentees()
+    }
+    
     private fun observeSettings() {
         lifecycleScope.launch {
             repeatOnLifecycle(Lifecycle.State.STARTED) {
-                settingsRepository.settings.collect { settings ->
+                settingsRepository.snapshot.collect { settings ->
+                    val mode = settings.attendanceMode
+                    attendanceMode = mode
+                    setAbsenteeMode(mode == "absentees")
+                    
                     // Configure card size and visibility of A/P buttons
                     val params = binding.studentCard.layoutParams
-                    if (settings.attendanceMode == "swipe") {
-                        binding.apButtonsContainer.visibility = View.GONE
+                    if (mode == "swipe") {
                         // Large Tinder card
                         params.height = (210 * resources.displayMetrics.density).toInt()
                         binding.swipeHintLayout.visibility = View.VISIBLE
                     } else {
-                        binding.apButtonsContainer.visibility = View.VISIBLE
                         // Default card height
                         params.height = (160 * resources.displayMetrics.density).toInt()
                         binding.swipeHintLayout.visibility = View.GONE
                     }
                     binding.studentCard.layoutParams = params
-
-                    // Enable/disable swipe touch listener dynamically
-                    if (settings.attendanceMode == "buttons") {
-                        binding.studentCard.setOnTouchListener(null)
-                    } else {
-                        setupSwipeGesture()
-                    }
+                    rapidMode = settings.rapidMode
+                    applyPanels()
                 }
             }
         }
     }
     
+    /** Switches to roll number entry; the absentee list is rebuilt on the way in. */
+    private fun setAbsenteeMode(enabled: Boolean) {
+        if (absenteeMode == enabled) return
+        absenteeMode = enabled
+        if (enabled) bindAbsentees()
+    }
+    
+    /**
+     * Shows one panel between the counters and the save button: the roster overview while
+     * it is open, otherwise absentee entry or the student card, depending on the mode.
+     */
+    private fun applyPanels() {
+        val showCard = !rosterOpen && !absenteeMode
+        val cardVisibility = if (showCard) View.VISIBLE else View.GONE
+        binding.rosterPanel.visibility = if (rosterOpen) View.VISIBLE else View.GONE
+        binding.absenteePanel.visibility = if (absenteeMode && !rosterOpen) View.VISIBLE else View.GONE
+        binding.studentCard.visibility = cardVisibility
+        binding.topSpacer.visibility = cardVisibility
+        binding.bottomSpacer.visibility = cardVisibility
+        binding.navigationRow.visibility = cardVisibility
+        binding.apButtonsContainer.visibility =
+            if (showCard && attendanceMode != "swipe") View.VISIBLE else View.GONE
+        
+        // Swipe stays installed; it is switched off whenever the card is hidden or the mode has no swipe
+        swipeController.isEnabled = showCard && (attendanceMode == "swipe" || attendanceMode == "both")
+        bindSelection(selectionCount)
+    }
+    
     private fun navigateToReport(sessionId: Long) {
         val intent = Intent(this, ReportActivity::class.java)
         intent.putExtra("sessionId", sessionId)
@@ -553,16 +690,37 @@ class AttendanceActivity : AppCompatActivity() {
             MaterialAlertDialogBuilder(this)
                 .setTitle("Discard Attendance?")
                 .setMessage("You have marked ${state.markedCount} students. Discard this session?")
-                .setPositiveButton("Discard") { _, _ -> finish() }
+                .setPositiveButton("Discard") { _, _ ->
+                    viewModel.discardDraft()
+                    finish()
+                }
                 .setNegativeButton("Continue", null)
                 .show()
         } else {
+            viewModel.discardDraft()
             finish()
         }
     }
     
+    override fun onDestroy() {
+        swipeController.detach()
+        super.onDestroy()
+    }
+    
     @Deprecated("Deprecated in Java")
     override fun onBackPressed() {
-        confirmExit()
+        // Back steps out of a selection, then out of the overview, before leaving the roll call
+        when {
+            rosterOpen && selectionCount > 0 -> viewModel.clearSelection()
+            rosterOpen -> viewModel.setRosterOpen(false)
+            else -> confirmExit()
+        }
+    }
+    
+    companion object {
+        private const val SWIPE_ENTRY_OFFSET_DP = 72f
+        private const val TAP_ENTRY_OFFSET_DP = 12f
+        private const val ROSTER_CELL_MIN_WIDTH_DP = 120
+        private const val ROSTER_POOL_SIZE = 40
     }
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+package com.simpleattendance.ui.attendance
+
+import com.simpleattendance.data.local.AttendanceStatus
+import com.simpleattendance.data.local.entity.StudentEntity
+
+/**
+ * Holds the roster for one roll call and tracks every student's status in a
+ * flat [ByteArray], with running counters so marks and navigation are O(1).
+ *
+ * The roster list is stored once and never copied on a mark. Only [load],
+ * [reset] and [reorder] touch every slot.
+ */
+class AttendanceMarkingEngine {
+
+    var roster: List<StudentEntity> = emptyList()
+        private set
+
+    private var statuses = ByteArray(0)
+
+    var currentIndex: Int = 0
+        private set
+
+    var presentCount: Int = 0
+        private set
+
+    var absentCount: Int = 0
+        private set
+
+    val size: Int
+        get() = roster.size
+
+    val markedCount: Int
+        get() = presentCount + absentCount
+
+    val unmarkedCount: Int
+        get() = roster.size - markedCount
+
+    val allMarked: Boolean
+        get() = roster.isNotEmpty() && markedCount == roster.size
+
+    val currentStudent: StudentEntity?
+        get() = roster.getOrNull(currentIndex)
+
+    /** Starts a roll call over [students], optionally with [codes] already marked (aligned with it). */
+    fun load(students: List<StudentEntity>, codes: ByteArray = ByteArray(students.size)) {
+        roster = students
+        statuses = codes
+        currentIndex = 0
+        presentCount = 0
+        absentCount = 0
+        for (code in codes) {
+            when (code) {
+                AttendanceStatus.PRESENT -> presentCount++
+                AttendanceStatus.ABSENT -> absentCount++
+            }
+        }
+    }
+
+    fun statusCodeAt(index: Int): Byte = statuses[index]
+
+    fun statusAt(index: Int): String? = AttendanceStatus.fromCode(statuses[index])
+
+    /**
+     * Sets the status of the student at [index] and returns the code it replaced.
+     * Counters are adjusted by the difference, so no slot other than [index] is read.
+     */
+    fun markAt(index: Int, code: Byte): Byte {
+        val previous = statuses[index]
+        if (previous == code) return previous
+        when (previous) {
+            AttendanceStatus.PRESENT -> presentCount--
+            AttendanceStatus.ABSENT -> absentCount--
+        }
+        when (code) {
+            AttendanceStatus.PRESENT -> presentCount++
+            AttendanceStatus.ABSENT -> absentCount++
+        }
+        statuses[index] = code
+        return previous
+    }
+
+    /** Marks the current student and advances to the next one, if any. */
+    fun markCurrent(code: Byte): Boolean = markAndAdvance(currentIndex, code)
+
+    /**
+     * Marks the student at [index], the one that was on screen when the teacher tapped,
+     * and advances past them if they are still current. A mark that arrives after the
+     * cursor has moved on updates its own student and leaves the cursor alone.
+     */
+    fun markAndAdvance(index: Int, code: Byte): Boolean {
+        if (index !in roster.indices) return false
+        markAt(index, code)
+        if (index == currentIndex && currentIndex < roster.size - 1) currentIndex++
+        return true
+    }
+
+    fun moveTo(index: Int): Boolean {
+        if (index !in roster.indices || index == currentIndex) return false
+        currentIndex = index
+        return true
+    }
+
+    fun reset() {
+        statuses.fill(AttendanceStatus.UNMARKED)
+        currentIndex = 0
+        presentCount = 0
+        absentCount = 0
+    }
+
+    /**
+     * Reorders the roster by [comparator], carrying each student's status with it.
+     */
+    fun reorder(comparator: Comparator<StudentEntity>) {
+        applyOrder(roster.indices.sortedWith { a, b -> comparator.compare(roster[a], roster[b]) })
+    }
+
+    /**
+     * Reorders the roster by precomputed [keys], aligned with it, so each comparison is a
+     * key compare with nothing derived or allocated. Equal keys keep their current order.
+     */
+    fun <K : Comparable<K>> reorderByKeys(keys: List<K>) {
+        applyOrder(roster.indices.sortedWith { a, b -> keys[a].compareTo(keys[b]) })
+    }
+
+    private fun applyOrder(order: List<Int>) {
+        val reordered = ArrayList<StudentEntity>(roster.size)
+        val reorderedStatuses = ByteArray(statuses.size)
+        order.forEachIndexed { newIndex, oldIndex ->
+            reordered.add(roster[oldIndex])
+            reorderedStatuses[newIndex] = statuses[oldIndex]
+        }
+        roster = reordered
+        statuses = reorderedStatuses
+        currentIndex = 0
+    }
+
+    /** Copy of the status slots, aligned with [roster]. */
+    fun snapshotStatuses(): ByteArray = statuses.copyOf()
+}
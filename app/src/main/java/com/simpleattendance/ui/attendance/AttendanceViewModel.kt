@@ -3,14 +3,31 @@ package com.simpleattendance.ui.attendance
 import androidx.lifecycle.SavedStateHandle
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
-import com.simpleattendance.data.local.entity.AttendanceRecordEntity
+import com.simpleattendance.data.local.AttendanceStatus
+import com.simpleattendance.data.local.PackedStatuses
+import com.simpleattendance.data.local.entity.AttendanceDraftEntity
 import com.simpleattendance.data.local.entity.AttendanceSessionEntity
 import com.simpleattendance.data.local.entity.ClassEntity
 import com.simpleattendance.data.local.entity.StudentEntity
+import com.simpleattendance.data.local.model.SessionReport
 import com.simpleattendance.data.repository.AttendanceRepository
+import com.simpleattendance.data.repository.SessionResultCache
+import com.simpleattendance.di.ApplicationScope
 import dagger.hilt.android.lifecycle.HiltViewModel
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.cancelAndJoin
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.*
 import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import java.text.CollationKey
+import java.text.Collator
+import java.util.UUID
 import javax.inject.Inject
 
 data class StudentAttendance(
@@ -20,38 +37,144 @@ data class StudentAttendance(
 
 data class AttendanceUiState(
     val classEntity: ClassEntity? = null,
-    val students: List<StudentAttendance> = emptyList(),
+    val students: List<StudentEntity> = emptyList(),
     val currentIndex: Int = 0,
+    val currentStudent: StudentAttendance? = null,
     val isLoading: Boolean = true,
     val isComplete: Boolean = false,
     val savedSessionId: Long? = null,
+    val error: String? = null,
     val presentCount: Int = 0,
-    val absentCount: Int = 0
+    val absentCount: Int = 0,
+    val canUndo: Boolean = false,
+    val canRedo: Boolean = false
 ) {
-    val currentStudent: StudentAttendance?
-        get() = students.getOrNull(currentIndex)
-    
     val progress: Float
         get() = if (students.isEmpty()) 0f else (currentIndex.toFloat() / students.size)
     
     val markedCount: Int
-        get() = students.count { it.status != null }
+        get() = presentCount + absentCount
     
     val allMarked: Boolean
-        get() = students.isNotEmpty() && students.all { it.status != null }
+        get() = students.isNotEmpty() && markedCount == students.size
+}
+
+/** The student on the card, their position and the roster size for the "3 / 40" label and navigation. */
+data class CurrentStudentSlice(
+    val index: Int,
+    val total: Int,
+    val attendance: StudentAttendance
+)
+
+data class AttendanceCounters(
+    val presentCount: Int,
+    val absentCount: Int,
+    val total: Int
+) {
+    val markedCount: Int
+        get() = presentCount + absentCount
+    
+    val remaining: Int
+        get() = total - markedCount
 }
 
+/** A student offered while typing roll numbers, with their roster position. */
+data class RollSuggestion(
+    val index: Int,
+    val student: StudentEntity,
+    val status: String?
+)
+
+data class UndoRedoState(
+    val canUndo: Boolean,
+    val canRedo: Boolean
+)
+
 @HiltViewModel
 class AttendanceViewModel @Inject constructor(
     private val repository: AttendanceRepository,
-    savedStateHandle: SavedStateHandle
+    private val sessionResultCache: SessionResultCache,
+    @ApplicationScope private val appScope: CoroutineScope,
+    private val savedStateHandle: SavedStateHandle
 ) : ViewModel() {
     
     private val classId: Long = savedStateHandle.get<Long>("classId") ?: 0L
     
+    // Generated once per roll call so a double-tapped or retried save maps to the same session.
+    // A restored draft brings back the key it was started with.
+    private var sessionKey: String = savedStateHandle.get<String>(KEY_SESSION_KEY)
+        ?: UUID.randomUUID().toString().also { savedStateHandle[KEY_SESSION_KEY] = it }
+    
+    private var saveJob: Job? = null
+    
+    // Any change flags the draft dirty; the writer batches everything flagged within
+    // DRAFT_WRITE_DELAY_MS into one write, off the tap path
+    private val draftDirty = Channel<Unit>(Channel.CONFLATED)
+    private var draftJob: Job? = null
+    
     private val _uiState = MutableStateFlow(AttendanceUiState())
     val uiState: StateFlow<AttendanceUiState> = _uiState.asStateFlow()
     
+    // Slices of uiState that each change only when their own inputs do, so a mark
+    // rebinds the card and counters but not the toolbar, and navigation rebinds no counters
+    val isLoading: Flow<Boolean> = _uiState.map { it.isLoading }.distinctUntilChanged()
+    
+    val classEntity: Flow<ClassEntity> = _uiState.mapNotNull { it.classEntity }.distinctUntilChanged()
+    
+    val currentStudent: Flow<CurrentStudentSlice> = _uiState
+        .mapNotNull { state ->
+            state.currentStudent?.let { CurrentStudentSlice(state.currentIndex, state.students.size, it) }
+        }
+        .distinctUntilChanged()
+    
+    val counters: Flow<AttendanceCounters> = _uiState
+        .map { AttendanceCounters(it.presentCount, it.absentCount, it.students.size) }
+        .distinctUntilChanged()
+    
+    val allMarked: Flow<Boolean> = _uiState.map { it.allMarked }.distinctUntilChanged()
+    
+    val savedSessionId: Flow<Long> = _uiState.mapNotNull { it.savedSessionId }.distinctUntilChanged()
+    
+    // Passes through null between errors, so the same message shown twice is delivered twice
+    val error: Flow<String> = _uiState.map { it.error }.distinctUntilChanged().filterNotNull()
+    
+    val undoRedo: Flow<UndoRedoState> = _uiState.map { UndoRedoState(it.canUndo, it.canRedo) }.distinctUntilChanged()
+    
+    // Roster overview. Whether it is open and laid out as a grid survives rotation; the
+    // selection is by student id, so it also survives sorting
+    val isRosterOpen: StateFlow<Boolean> = savedStateHandle.getStateFlow(KEY_ROSTER_OPEN, false)
+    val isRosterGrid: StateFlow<Boolean> = savedStateHandle.getStateFlow(KEY_ROSTER_GRID, true)
+    
+    private val selection = MutableStateFlow<Set<Long>>(emptySet())
+    val selectionCount: Flow<Int> = selection.map { it.size }.distinctUntilChanged()
+    
+    // Cells from the last build; a student whose cell is unchanged keeps the same instance
+    private var rosterCells: List<RosterCell> = emptyList()
+    
+    /** Every student's cell while the overview is open; nothing is built while it is closed. */
+    @OptIn(ExperimentalCoroutinesApi::class)
+    val roster: Flow<List<RosterCell>> = isRosterOpen.flatMapLatest { open ->
+        if (open) combine(_uiState, selection) { _, selected -> buildRosterCells(selected) } else emptyFlow()
+    }
+    
+    val rosterSections: Flow<RosterSections> = _uiState
+        .map { it.students }
+        .distinctUntilChanged { old, new -> old === new }
+        .map { RosterSections.of(it) }
+    
+    private val engine = AttendanceMarkingEngine()
+    private val journal = MarkJournal()
+    
+    // Roll-number lookup for absentee entry, rebuilt whenever the roster order changes
+    private var rollIndex = RollNumberIndex(emptyList())
+    
+    // Collation keys for names by student id, built on the first alphabetical sort
+    private val collator = Collator.getInstance().apply { strength = Collator.SECONDARY }
+    private val nameKeys = HashMap<Long, CollationKey>()
+    
+    // Roster in class-list order, kept for the report hand-off after sorting
+    private var classRoster: List<StudentEntity> = emptyList()
+    
     init {
         loadClassAndStudents()
     }
@@ -60,125 +183,375 @@ class AttendanceViewModel @Inject constructor(
         viewModelScope.launch {
             val classEntity = repository.getClassById(classId)
             val students = repository.getStudentsByClassSync(classId)
+            val draft = repository.getDraft(classId)
             
-            _uiState.value = AttendanceUiState(
-                classEntity = classEntity,
-                students = students.map { StudentAttendance(it) },
-                isLoading = false
-            )
+            classRoster = students
+            if (draft != null) {
+                restoreDraft(students, draft)
+            } else {
+                engine.load(students)
+            }
+            journal.fitRoster(students.size)
+            rollIndex = RollNumberIndex(engine.roster)
+            publish(AttendanceUiState(classEntity = classEntity, isLoading = false))
+            draftJob = viewModelScope.launch { writeDrafts() }
         }
     }
     
-    fun markPresent() {
-        markAttendance("P")
+    /**
+     * Picks up a roll call the process was killed in the middle of. Students are matched
+     * by id, so anyone added to the class since starts unmarked.
+     */
+    private fun restoreDraft(students: List<StudentEntity>, draft: AttendanceDraftEntity) {
+        val packed = PackedStatuses.of(draft)
+        engine.load(students, ByteArray(students.size) { packed.codeOf(students[it].id) })
+        engine.moveTo(students.indexOfFirst { it.id == draft.currentStudentId })
+        sessionKey = draft.sessionKey
+        savedStateHandle[KEY_SESSION_KEY] = draft.sessionKey
     }
     
-    fun markAbsent() {
-        markAttendance("A")
+    private suspend fun writeDrafts() {
+        while (true) {
+            draftDirty.receive()
+            delay(DRAFT_WRITE_DELAY_MS)
+            // Anything flagged during the delay is in this snapshot already
+            draftDirty.tryReceive()
+            
+            // Copied on the main thread, where the engine lives; packed and written off it
+            val roster = engine.roster
+            val codes = engine.snapshotStatuses()
+            val currentId = engine.currentStudent?.id ?: 0L
+            val hasMarks = engine.markedCount > 0
+            val key = sessionKey
+            withContext(Dispatchers.Default) {
+                if (hasMarks) {
+                    val packed = PackedStatuses.pack(0L, roster, codes)
+                    repository.saveDraft(
+                        AttendanceDraftEntity(classId, key, packed.studentIds, packed.statuses, currentId)
+                    )
+                } else {
+                    repository.deleteDraft(classId)
+                }
+            }
+        }
     }
     
-    private fun markAttendance(status: String) {
-        val state = _uiState.value
-        val index = state.currentIndex
-        if (index >= state.students.size) return
-        
-        val updatedStudents = state.students.toMutableList()
-        updatedStudents[index] = updatedStudents[index].copy(status = status)
-        
-        val presentCount = updatedStudents.count { it.status == "P" }
-        val absentCount = updatedStudents.count { it.status == "A" }
-        
-        val newIndex = if (index < state.students.size - 1) index + 1 else index
-        val isComplete = updatedStudents.all { it.status != null }
-        
-        _uiState.value = state.copy(
-            students = updatedStudents,
-            currentIndex = newIndex,
-            presentCount = presentCount,
-            absentCount = absentCount,
-            isComplete = isComplete
+    /**
+     * Drops the draft when the teacher discards the roll call. Runs in the application
+     * scope because the screen is finishing and this ViewModel is about to be cleared.
+     */
+    fun discardDraft() {
+        val writer = draftJob
+        appScope.launch {
+            writer?.cancelAndJoin()
+            repository.deleteDraft(classId)
+        }
+    }
+    
+    /**
+     * Pushes the engine's current position and counters into the UI state.
+     * The roster reference is shared, never copied. The engine's mark itself allocates
+     * nothing; each publish allocates only the new state and its current-student holder.
+     */
+    private fun publish(base: AttendanceUiState = _uiState.value) {
+        draftDirty.trySend(Unit)
+        val index = engine.currentIndex
+        _uiState.value = base.copy(
+            students = engine.roster,
+            currentIndex = index,
+            currentStudent = engine.currentStudent?.let { StudentAttendance(it, engine.statusAt(index)) },
+            presentCount = engine.presentCount,
+            absentCount = engine.absentCount,
+            isComplete = engine.allMarked,
+            canUndo = journal.canUndo,
+            canRedo = journal.canRedo
         )
     }
     
-    fun goToPrevious() {
-        val state = _uiState.value
-        if (state.currentIndex > 0) {
-            _uiState.value = state.copy(currentIndex = state.currentIndex - 1)
+    /** Marks the student at [index], the position shown on screen when the mark was made. */
+    fun markPresent(index: Int) {
+        markAttendance(index, AttendanceStatus.PRESENT)
+    }
+    
+    fun markAbsent(index: Int) {
+        markAttendance(index, AttendanceStatus.ABSENT)
+    }
+    
+    private fun markAttendance(index: Int, code: Byte) {
+        if (index !in 0 until engine.size) return
+        val previous = engine.statusCodeAt(index)
+        engine.markAndAdvance(index, code)
+        if (previous != code) journal.record(index, previous, code)
+        publish()
+    }
+    
+    /** Marks every student at [positions] with [code] in one publish, journaled as one undo step. */
+    private fun markAll(positions: List<Int>, code: Byte) {
+        var changed = false
+        for (index in positions) {
+            if (index !in 0 until engine.size) continue
+            val previous = engine.markAt(index, code)
+            if (previous != code) {
+                journal.record(index, previous, code, bulk = true, joinPrevious = changed)
+                changed = true
+            }
         }
+        if (changed) publish()
     }
     
-    fun goToNext() {
-        val state = _uiState.value
-        if (state.currentIndex < state.students.size - 1) {
-            _uiState.value = state.copy(currentIndex = state.currentIndex + 1)
+    /** Students whose roll number starts with [prefix], for the absentee entry suggestions. */
+    fun rollSuggestions(prefix: String): List<RollSuggestion> =
+        rollIndex.suggest(prefix).map { RollSuggestion(it, engine.roster[it], engine.statusAt(it)) }
+    
+    /**
+     * Marks absent everyone named in [input]: roll numbers and ranges such as "101-105",
+     * separated by commas or spaces. Returns what matched and the tokens that did not.
+     */
+    fun markAbsentees(input: String): RollNumberIndex.Resolution {
+        val resolution = rollIndex.resolve(input)
+        markAll(resolution.positions, AttendanceStatus.ABSENT)
+        return resolution
+    }
+    
+    fun markAbsentAt(index: Int) {
+        markAll(listOf(index), AttendanceStatus.ABSENT)
+    }
+    
+    /** Takes a student back off the absentee list, leaving them to default to present. */
+    fun clearMarkAt(index: Int) {
+        markAll(listOf(index), AttendanceStatus.UNMARKED)
+    }
+    
+    /** Absent students in roster order, for the absentee list. */
+    fun absentees(): List<RollSuggestion> {
+        val result = ArrayList<RollSuggestion>(engine.absentCount)
+        for (index in 0 until engine.size) {
+            if (engine.statusCodeAt(index) == AttendanceStatus.ABSENT) {
+                result.add(RollSuggestion(index, engine.roster[index], "A"))
+            }
         }
+        return result
     }
     
-    fun goToStudent(index: Int) {
-        val state = _uiState.value
-        if (index in state.students.indices) {
-            _uiState.value = state.copy(currentIndex = index)
+    /**
+     * Copies the statuses of the class's last session onto every student not marked yet,
+     * so the teacher only needs to change the ones that differ. Students who joined since
+     * stay unmarked. Returns how many students were filled, or -1 if there is no earlier session.
+     */
+    suspend fun prefillFromLastSession(): Int {
+        val last = repository.getLatestSessionStatuses(classId) ?: return -1
+        val positions = ArrayList<Int>()
+        val codes = ArrayList<Byte>()
+        for (index in 0 until engine.size) {
+            if (engine.statusCodeAt(index) != AttendanceStatus.UNMARKED) continue
+            val code = last.codeOf(engine.roster[index].id)
+            if (code == AttendanceStatus.UNMARKED) continue
+            positions.add(index)
+            codes.add(code)
+        }
+        for (i in positions.indices) {
+            val index = positions[i]
+            journal.record(index, engine.markAt(index, codes[i]), codes[i], bulk = true, joinPrevious = i > 0)
+        }
+        // Start the walk at the first student still unmarked, usually a new joiner
+        val firstUnmarked = (0 until engine.size).firstOrNull { engine.statusCodeAt(it) == AttendanceStatus.UNMARKED }
+        engine.moveTo(firstUnmarked ?: 0)
+        publish()
+        return positions.size
+    }
+    
+    /** Reads the engine on the main thread, where it lives; only changed students get a new cell. */
+    private fun buildRosterCells(selected: Set<Long>): List<RosterCell> {
+        val previous = rosterCells
+        val current = engine.currentIndex
+        val cells = ArrayList<RosterCell>(engine.size)
+        for (index in 0 until engine.size) {
+            val student = engine.roster[index]
+            val status = engine.statusCodeAt(index)
+            val isCurrent = index == current
+            val isSelected = student.id in selected
+            val old = previous.getOrNull(index)
+            val unchanged = old != null && old.student === student && old.status == status &&
+                old.isCurrent == isCurrent && old.isSelected == isSelected
+            cells.add(if (unchanged) old!! else RosterCell(index, student, status, isCurrent, isSelected))
+        }
+        rosterCells = cells
+        return cells
+    }
+    
+    fun setRosterOpen(open: Boolean) {
+        savedStateHandle[KEY_ROSTER_OPEN] = open
+        if (!open) selection.value = emptySet()
+    }
+    
+    fun setRosterGrid(grid: Boolean) {
+        savedStateHandle[KEY_ROSTER_GRID] = grid
+    }
+    
+    fun toggleSelection(studentId: Long) {
+        selection.update { if (studentId in it) it - studentId else it + studentId }
+    }
+    
+    fun clearSelection() {
+        selection.value = emptySet()
+    }
+    
+    /** Marks every selected student present or absent in one publish, then ends the selection. */
+    fun markSelection(isPresent: Boolean) {
+        val selected = selection.value
+        if (selected.isEmpty()) return
+        val positions = (0 until engine.size).filter { engine.roster[it].id in selected }
+        markAll(positions, if (isPresent) AttendanceStatus.PRESENT else AttendanceStatus.ABSENT)
+        selection.value = emptySet()
+    }
+    
+    /** Marks everyone not yet marked as present. */
+    fun markRemainingPresent() {
+        val unmarked = (0 until engine.size).filter { engine.statusCodeAt(it) == AttendanceStatus.UNMARKED }
+        markAll(unmarked, AttendanceStatus.PRESENT)
+    }
+    
+    /**
+     * Reverts the last mark, or the whole of the last bulk action, and puts its (first)
+     * student back on the card. Counters are adjusted one slot per mark, so a single
+     * undo costs the same as a mark.
+     */
+    fun undo() {
+        var entry = journal.undo()
+        if (entry == MarkJournal.NONE) return
+        while (true) {
+            engine.markAt(MarkJournal.indexOf(entry), MarkJournal.previousOf(entry))
+            if (!MarkJournal.joinsPrevious(entry)) break
+            val earlier = journal.undo()
+            if (earlier == MarkJournal.NONE) break
+            entry = earlier
         }
+        engine.moveTo(MarkJournal.indexOf(entry))
+        publish()
+    }
+    
+    /**
+     * Re-applies the last undone mark, advancing past its student as the original mark
+     * did. A bulk action, even one that marked a single student, is re-applied whole and,
+     * like the original, leaves the card alone.
+     */
+    fun redo() {
+        val entry = journal.redo()
+        if (entry == MarkJournal.NONE) return
+        val index = MarkJournal.indexOf(entry)
+        if (!MarkJournal.isBulk(entry)) {
+            engine.moveTo(index)
+            engine.markAndAdvance(index, MarkJournal.codeOf(entry))
+        } else {
+            engine.markAt(index, MarkJournal.codeOf(entry))
+            while (journal.redoContinuesGroup) {
+                val next = journal.redo()
+                engine.markAt(MarkJournal.indexOf(next), MarkJournal.codeOf(next))
+            }
+        }
+        publish()
+    }
+    
+    fun goToPrevious() {
+        if (engine.moveTo(engine.currentIndex - 1)) publish()
+    }
+    
+    fun goToNext() {
+        if (engine.moveTo(engine.currentIndex + 1)) publish()
+    }
+    
+    fun goToStudent(index: Int) {
+        if (engine.moveTo(index)) publish()
     }
     
     fun resetAttendance() {
-        val state = _uiState.value
-        val resetStudents = state.students.map { it.copy(status = null) }
-        _uiState.value = state.copy(
-            students = resetStudents,
-            currentIndex = 0,
-            presentCount = 0,
-            absentCount = 0,
-            isComplete = false
-        )
+        engine.reset()
+        journal.clear()
+        publish()
     }
     
+    /**
+     * Sorts by name with the device locale's collation, so accents and case order the
+     * way the teacher reads them. Each name's key is made once and reused on later sorts.
+     */
     fun sortAlphabetically() {
-        val state = _uiState.value
-        val sortedStudents = state.students.sortedBy { it.student.name.lowercase() }
-        _uiState.value = state.copy(
-            students = sortedStudents,
-            currentIndex = 0
-        )
+        engine.reorderByKeys(engine.roster.map { student ->
+            nameKeys.getOrPut(student.id) { collator.getCollationKey(student.name.trim()) }
+        })
+        // Journal entries hold roster positions, which a reorder invalidates
+        journal.clear()
+        rollIndex = RollNumberIndex(engine.roster)
+        publish()
     }
     
     fun sortByOriginalOrder() {
-        val state = _uiState.value
-        val sortedStudents = state.students.sortedBy { it.student.id }
-        _uiState.value = state.copy(
-            students = sortedStudents,
-            currentIndex = 0
-        )
+        engine.reorder(compareBy { it.id })
+        journal.clear()
+        rollIndex = RollNumberIndex(engine.roster)
+        publish()
     }
     
-    fun saveAttendance() {
+    /**
+     * Saves the roll call. With [remainingPresent], everyone still unmarked is saved as
+     * present, which is how absentee entry finishes.
+     */
+    fun saveAttendance(remainingPresent: Boolean = false) {
         val state = _uiState.value
         // Allow saving even if not all are marked
         if (state.students.isEmpty()) return
+        if (saveJob?.isActive == true) return
+        if (remainingPresent) markRemainingPresent()
         
-        viewModelScope.launch {
-            // Create session
+        saveJob = viewModelScope.launch {
+            // Stop the writer first, so no late draft write can land after the save deletes the draft
+            draftJob?.cancelAndJoin()
             val session = AttendanceSessionEntity(
                 classId = classId,
-                presentCount = state.presentCount,
-                absentCount = state.absentCount,
-                totalCount = state.students.size
+                presentCount = engine.presentCount,
+                absentCount = engine.absentCount,
+                totalCount = engine.size,
+                sessionKey = sessionKey
             )
-            val sessionId = repository.insertSession(session)
+            val reportStatuses = classRosterStatuses()
+            val sessionId = try {
+                repository.saveSession(session, engine.roster, engine.snapshotStatuses())
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                // Nothing was saved, so keep the roll call going and its draft current
+                draftJob = viewModelScope.launch { writeDrafts() }
+                draftDirty.trySend(Unit)
+                _uiState.update { it.copy(error = e.message ?: "Could not save attendance") }
+                return@launch
+            }
             
-            // Create records
-            val records = state.students.mapNotNull { sa ->
-                sa.status?.let { status ->
-                    AttendanceRecordEntity(
-                        sessionId = sessionId,
-                        studentId = sa.student.id,
-                        status = status
-                    )
-                }
+            state.classEntity?.let { classEntity ->
+                sessionResultCache.put(
+                    SessionReport(session.copy(id = sessionId), classEntity, classRoster, reportStatuses)
+                )
             }
-            repository.insertRecords(records)
             
-            _uiState.value = state.copy(savedSessionId = sessionId)
+            _uiState.update { it.copy(savedSessionId = sessionId) }
         }
     }
+    
+    fun clearError() {
+        _uiState.update { it.copy(error = null) }
+    }
+    
+    /** Status codes aligned with [classRoster], whatever order the engine is sorted in. */
+    private fun classRosterStatuses(): ByteArray {
+        val codeById = HashMap<Long, Byte>(engine.size * 2)
+        for (index in 0 until engine.size) {
+            codeById[engine.roster[index].id] = engine.statusCodeAt(index)
+        }
+        return ByteArray(classRoster.size) { codeById[classRoster[it].id] ?: AttendanceStatus.UNMARKED }
+    }
+    
+    companion object {
+        private const val KEY_SESSION_KEY = "sessionKey"
+        private const val KEY_ROSTER_OPEN = "rosterOpen"
+        private const val KEY_ROSTER_GRID = "rosterGrid"
+        private const val DRAFT_WRITE_DELAY_MS = 300L
+    }
 }
@@ -0,0 +1,180 @@
+package com.simpleattendance.ui.attendance
+
+import android.annotation.SuppressLint
+import android.view.MotionEvent
+import android.view.VelocityTracker
+import android.view.View
+import android.view.ViewConfiguration
+import android.view.animation.AccelerateDecelerateInterpolator
+import android.widget.TextView
+import androidx.core.content.ContextCompat
+import com.google.android.material.card.MaterialCardView
+import com.simpleattendance.R
+import kotlin.math.abs
+
+/**
+ * Drag-to-mark gesture for the student card. Installed once and switched on or off with
+ * [isEnabled]; colors, thresholds and the velocity tracker are set up front, so a drag
+ * allocates nothing per event and moves the card only through translation and rotation.
+ * Pulling the card straight down calls [onPullDown] instead of marking.
+ */
+class CardSwipeController(
+    private val card: MaterialCardView,
+    private val name: TextView,
+    private val onSwipe: (isPresent: Boolean) -> Unit,
+    private val onPullDown: () -> Unit
+) : View.OnTouchListener {
+    
+    private val presentColor = ContextCompat.getColor(card.context, R.color.success_green)
+    private val absentColor = ContextCompat.getColor(card.context, R.color.error_red)
+    private val restingTextColor = ContextCompat.getColor(card.context, R.color.text_primary)
+    private val restingStrokeColor = ContextCompat.getColor(card.context, R.color.glass_border)
+    
+    private val density = card.resources.displayMetrics.density
+    private val touchSlop = ViewConfiguration.get(card.context).scaledTouchSlop
+    private val maxFlingVelocity = ViewConfiguration.get(card.context).scaledMaximumFlingVelocity.toFloat()
+    
+    // A drag past this distance marks on release; a shorter one needs a fling in the same direction
+    private val commitDistance = 96 * density
+    private val flingVelocity = 800 * density
+    private val tintDistance = 24 * density
+    
+    private val reboundInterpolator = AccelerateDecelerateInterpolator()
+    private var velocityTracker: VelocityTracker? = null
+    
+    private var startX = 0f
+    private var startY = 0f
+    private var dragging = false
+    private var rebounding = false
+    private val reboundEnd = Runnable { rebounding = false }
+    
+    // Tint currently shown on the card: one of TINT_*, so moves only touch the views when it changes
+    private var shownTint = TINT_REST
+    
+    /** Status of the student on the card, shown whenever the card is not being dragged. */
+    var restingStatus: String? = null
+        set(value) {
+            field = value
+            if (!dragging) applyTint(TINT_REST, force = true)
+        }
+    
+    var isEnabled: Boolean = false
+        set(value) {
+            if (field == value) return
+            field = value
+            if (!value && dragging) rebound()
+        }
+    
+    fun attach() {
+        card.setOnTouchListener(this)
+    }
+    
+    fun detach() {
+        card.setOnTouchListener(null)
+        velocityTracker?.recycle()
+        velocityTracker = null
+    }
+    
+    @SuppressLint("ClickableViewAccessibility")
+    override fun onTouch(view: View, event: MotionEvent): Boolean {
+        if (!isEnabled) return false
+        when (event.actionMasked) {
+            MotionEvent.ACTION_DOWN -> {
+                // Catch a card that is still springing back; the activity's swipe-out runs to its end
+                if (rebounding) {
+                    card.animate().cancel()
+                    rebounding = false
+                }
+                startX = event.rawX - card.translationX
+                startY = event.rawY - card.translationY
+                dragging = true
+                val tracker = velocityTracker ?: VelocityTracker.obtain().also { velocityTracker = it }
+                tracker.clear()
+                tracker.addMovement(event)
+            }
+            MotionEvent.ACTION_MOVE -> {
+                if (!dragging) return false
+                velocityTracker?.addMovement(event)
+                val dx = event.rawX - startX
+                val dy = event.rawY - startY
+                card.translationX = dx
+                card.translationY = dy
+                card.rotation = dx * 0.05f
+                applyTint(
+                    when {
+                        dx > tintDistance -> TINT_PRESENT
+                        dx < -tintDistance -> TINT_ABSENT
+                        else -> TINT_REST
+                    }
+                )
+            }
+            MotionEvent.ACTION_UP -> {
+                if (!dragging) return false
+                val tracker = velocityTracker
+                tracker?.addMovement(event)
+                tracker?.computeCurrentVelocity(1000, maxFlingVelocity)
+                val vx = tracker?.xVelocity ?: 0f
+                val vy = tracker?.yVelocity ?: 0f
+                val dx = event.rawX - startX
+                val dy = event.rawY - startY
+                dragging = false
+                
+                // A mostly vertical downward drag or fling is a pull, never a mark
+                val isPullDown = dy > touchSlop && dy > 2 * abs(dx) && (dy > commitDistance || vy > flingVelocity)
+                val isFling = abs(dx) > touchSlop && abs(vx) > flingVelocity && (vx > 0) == (dx > 0)
+                if (isPullDown) {
+                    rebound()
+                    onPullDown()
+                } else if (abs(dx) > commitDistance || isFling) {
+                    onSwipe(dx > 0)
+                } else {
+                    rebound()
+                }
+            }
+            MotionEvent.ACTION_CANCEL -> {
+                if (dragging) rebound()
+            }
+        }
+        return true
+    }
+    
+    private fun rebound() {
+        dragging = false
+        rebounding = true
+        applyTint(TINT_REST, force = true)
+        card.animate()
+            .translationX(0f)
+            .translationY(0f)
+            .rotation(0f)
+            .setDuration(250)
+            .setInterpolator(reboundInterpolator)
+            .withEndAction(reboundEnd)
+            .start()
+    }
+    
+    private fun applyTint(tint: Int, force: Boolean = false) {
+        if (tint == shownTint && !force) return
+        shownTint = tint
+        val status = if (tint == TINT_REST) restingStatus else if (tint == TINT_PRESENT) "P" else "A"
+        when (status) {
+            "P" -> {
+                card.strokeColor = presentColor
+                name.setTextColor(presentColor)
+            }
+            "A" -> {
+                card.strokeColor = absentColor
+                name.setTextColor(absentColor)
+            }
+            else -> {
+                card.strokeColor = restingStrokeColor
+                name.setTextColor(restingTextColor)
+            }
+        }
+    }
+    
+    companion object {
+        private const val TINT_REST = 0
+        private const val TINT_PRESENT = 1
+        private const val TINT_ABSENT = 2
+    }
+}
@@ -0,0 +1,113 @@
+package com.simpleattendance.ui.attendance
+
+/**
+ * Undo/redo history for one roll call. Each mark is packed into a single Int
+ * (roster index, previous code, new code) and kept in a fixed ring buffer, so
+ * recording, undoing and redoing are O(1) and never allocate. Once full, the
+ * oldest mark is dropped.
+ *
+ * A bulk action is recorded as a group: every mark in it is flagged as bulk, and every
+ * mark after its first as joining the one before, so the caller undoes and redoes the
+ * group as one step. The bulk flag marks a group of one apart from a single mark.
+ * [fitRoster] sizes the ring so a group over the whole roster always fits.
+ *
+ * Indices refer to the engine's current roster order; the journal is cleared
+ * whenever that order or every status changes at once.
+ */
+class MarkJournal(capacity: Int = DEFAULT_CAPACITY) {
+
+    private var entries = IntArray(capacity)
+
+    // Slot the next mark is written to
+    private var head = 0
+
+    // Marks available to undo, and undone marks available to redo
+    private var undoCount = 0
+    private var redoCount = 0
+
+    val canUndo: Boolean
+        get() = undoCount > 0
+
+    val canRedo: Boolean
+        get() = redoCount > 0
+
+    /** True if the mark [redo] would return next belongs to the group redone before it. */
+    val redoContinuesGroup: Boolean
+        get() = redoCount > 0 && joinsPrevious(entries[head])
+
+    /**
+     * Records a mark. [bulk] marks it as part of a bulk action, and with [joinPrevious]
+     * it is grouped with the mark recorded just before it. Any undone marks are
+     * discarded, as in a text editor.
+     */
+    fun record(index: Int, previous: Byte, code: Byte, bulk: Boolean = false, joinPrevious: Boolean = false) {
+        entries[head] = pack(index, previous, code, bulk, joinPrevious)
+        head = (head + 1) % entries.size
+        if (undoCount < entries.size) undoCount++
+        redoCount = 0
+    }
+
+    /** Steps back one mark and returns its packed entry, or [NONE]. */
+    fun undo(): Int {
+        if (undoCount == 0) return NONE
+        head = (head - 1 + entries.size) % entries.size
+        undoCount--
+        redoCount++
+        return entries[head]
+    }
+
+    /** Steps forward over the last undone mark and returns its packed entry, or [NONE]. */
+    fun redo(): Int {
+        if (redoCount == 0) return NONE
+        val entry = entries[head]
+        head = (head + 1) % entries.size
+        redoCount--
+        undoCount++
+        return entry
+    }
+
+    fun clear() {
+        head = 0
+        undoCount = 0
+        redoCount = 0
+    }
+
+    /**
+     * Clears the history and grows the ring, if needed, to hold a bulk action over all
+     * [rosterSize] students plus [DEFAULT_CAPACITY] single marks before it.
+     */
+    fun fitRoster(rosterSize: Int) {
+        val capacity = rosterSize + DEFAULT_CAPACITY
+        if (entries.size < capacity) entries = IntArray(capacity)
+        clear()
+    }
+
+    companion object {
+        const val NONE = -1
+        private const val DEFAULT_CAPACITY = 256
+
+        // Set on every mark of a group but its first
+        private const val JOINS_PREVIOUS = 1 shl 15
+
+        // Set on every mark of a bulk action, including a group of one
+        private const val BULK = 1 shl 7
+
+        // The index takes the upper 16 bits, the group flag bit 15, the previous code bits 8-14,
+        // the bulk flag bit 7 and the new code the 7 bits below it
+        private fun pack(index: Int, previous: Byte, code: Byte, bulk: Boolean, joinPrevious: Boolean): Int =
+            (index shl 16) or (if (joinPrevious) JOINS_PREVIOUS else 0) or
+                ((previous.toInt() and 0x7F) shl 8) or (if (bulk) BULK else 0) or (code.toInt() and 0x7F)
+
+        fun indexOf(entry: Int): Int = entry ushr 16
+
+        fun previousOf(entry: Int): Byte = ((entry ushr 8) and 0x7F).toByte()
+
+        fun codeOf(entry: Int): Byte = (entry and 0x7F).toByte()
+
+        /** True if [entry] was recorded by a bulk action, which leaves the cursor alone. */
+        fun isBulk(entry: Int): Boolean = entry != NONE && entry and BULK != 0
+
+        /** True if [entry] was recorded as part of the group of the entry before it. */
+        fun joinsPrevious(entry: Int): Boolean = entry != NONE && entry and JOINS_PREVIOUS != 0
+    }
+}
@@ -0,0 +1,160 @@
+package com.simpleattendance.ui.attendance
+
+import com.simpleattendance.data.local.entity.StudentEntity
+import java.util.Locale
+
+/**
+ * Sorted lookup over the roll numbers of one roster, built once per roster order.
+ * Prefix suggestions are a binary search plus a short scan; exact and bare-number
+ * lookups are binary searches. Results are roster positions, ready to mark.
+ *
+ * Roll numbers are matched case-insensitively. A roll like "CS101" also splits into
+ * a text part ("cs") and a trailing number (101), which is what ranges compare.
+ */
+class RollNumberIndex(roster: List<StudentEntity>) {
+
+    // Parallel arrays sorted by key; students without a roll number are left out
+    private val keys: Array<String>
+    private val positions: IntArray
+    private val stems: Array<String>
+    private val numbers: LongArray
+
+    // Slots of the arrays above ordered by trailing number, for bare-number lookups
+    private val byNumber: IntArray
+
+    init {
+        val order = roster.indices
+            .filter { roster[it].rollNo.isNotBlank() }
+            .sortedBy { normalize(roster[it].rollNo) }
+        keys = Array(order.size) { normalize(roster[order[it]].rollNo) }
+        positions = IntArray(order.size) { order[it] }
+        stems = Array(order.size) { stemOf(keys[it]) }
+        numbers = LongArray(order.size) { numberOf(keys[it], stems[it].length) }
+        byNumber = numbers.indices.sortedBy { numbers[it] }.toIntArray()
+    }
+
+    /** Up to [limit] roster positions whose roll number starts with [prefix], in roll order. */
+    fun suggest(prefix: String, limit: Int = DEFAULT_SUGGESTIONS): List<Int> {
+        val key = normalize(prefix)
+        if (key.isEmpty()) return emptyList()
+        val result = ArrayList<Int>(limit)
+        var i = lowerBound(key)
+        while (i < keys.size && result.size < limit && keys[i].startsWith(key)) {
+            result.add(positions[i])
+            i++
+        }
+        return result
+    }
+
+    /** Roster position of the student whose roll number is exactly [rollNo], or -1. */
+    fun find(rollNo: String): Int {
+        val key = normalize(rollNo)
+        val i = lowerBound(key)
+        return if (i < keys.size && keys[i] == key) positions[i] else -1
+    }
+
+    /**
+     * Resolves free-form input such as "101, 104 110-115" into roster positions.
+     * A bare number that is not a roll number on its own matches the one student whose
+     * roll ends in that number, so "7" finds "CS07" when nothing else ends in 7.
+     * Ranges match every roll whose trailing number falls inside them and, when the
+     * range is written with a text part ("CS101-CS105"), whose text part is the same.
+     * Ends with different text parts ("CS10-EE12") match nobody.
+     */
+    fun resolve(input: String): Resolution {
+        val matched = LinkedHashSet<Int>()
+        val unmatched = ArrayList<String>()
+        for (token in input.split(SEPARATORS)) {
+            if (token.isEmpty()) continue
+            // Rolls may contain dashes themselves, so an exact roll wins over a range.
+            // A token repeating earlier matches still counts as matched.
+            val exact = find(token)
+            val dash = token.indexOf('-', startIndex = 1)
+            val found = if (exact >= 0) {
+                matched.add(exact)
+                true
+            } else if (dash > 0) {
+                resolveRange(normalize(token.substring(0, dash)), normalize(token.substring(dash + 1)), matched)
+            } else {
+                uniqueByNumber(normalize(token))?.let { matched.add(it) } != null
+            }
+            if (!found) unmatched.add(token)
+        }
+        return Resolution(matched.toList(), unmatched)
+    }
+
+    // Adds the range's students to [into]; false if the range is invalid or matches nobody
+    private fun resolveRange(from: String, to: String, into: MutableSet<Int>): Boolean {
+        val stem = stemOf(from)
+        val toStem = stemOf(to)
+        // The end may repeat the text part or leave it out ("CS10-CS12", "CS10-12")
+        if (toStem.isNotEmpty() && toStem != stem) return false
+        val start = numberOf(from, stem.length)
+        val end = numberOf(to, toStem.length)
+        if (start < 0 || end < start) return false
+        // A range with a text part only looks inside that block of the index
+        var found = false
+        var i = if (stem.isEmpty()) 0 else lowerBound(stem)
+        while (i < keys.size) {
+            if (stem.isNotEmpty() && !keys[i].startsWith(stem)) break
+            if ((stem.isEmpty() || stems[i] == stem) && numbers[i] in start..end) {
+                into.add(positions[i])
+                found = true
+            }
+            i++
+        }
+        return found
+    }
+
+    private fun uniqueByNumber(token: String): Int? {
+        if (token.isEmpty() || !token.all { it.isDigit() }) return null
+        val number = token.toLongOrNull() ?: return null
+        val i = lowerBoundByNumber(number)
+        if (i >= byNumber.size || numbers[byNumber[i]] != number) return null
+        // A second roll ending in the same number makes the token ambiguous
+        if (i + 1 < byNumber.size && numbers[byNumber[i + 1]] == number) return null
+        return positions[byNumber[i]]
+    }
+
+    private fun lowerBound(key: String): Int {
+        var low = 0
+        var high = keys.size
+        while (low < high) {
+            val mid = (low + high) ushr 1
+            if (keys[mid] < key) low = mid + 1 else high = mid
+        }
+        return low
+    }
+
+    private fun lowerBoundByNumber(number: Long): Int {
+        var low = 0
+        var high = byNumber.size
+        while (low < high) {
+            val mid = (low + high) ushr 1
+            if (numbers[byNumber[mid]] < number) low = mid + 1 else high = mid
+        }
+        return low
+    }
+
+    /** Matched roster positions in input order, and the tokens that matched nobody. */
+    class Resolution(val positions: List<Int>, val unmatched: List<String>)
+
+    companion object {
+        private const val DEFAULT_SUGGESTIONS = 8
+        private val SEPARATORS = Regex("[\\s,;]+")
+
+        private fun normalize(rollNo: String): String = rollNo.trim().lowercase(Locale.ROOT)
+
+        // Everything before the trailing run of digits
+        private fun stemOf(key: String): String {
+            var end = key.length
+            while (end > 0 && key[end - 1].isDigit()) end--
+            return key.substring(0, end)
+        }
+
+        private fun numberOf(key: String, stemLength: Int): Long {
+            if (stemLength == key.length) return -1L
+            return key.substring(stemLength).take(18).toLongOrNull() ?: -1L
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.simpleattendance.ui.attendance
+
+import android.content.Context
+import android.view.LayoutInflater
+import android.view.ViewGroup
+import androidx.core.content.ContextCompat
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.ListAdapter
+import androidx.recyclerview.widget.RecyclerView
+import com.simpleattendance.R
+import com.simpleattendance.data.local.AttendanceStatus
+import com.simpleattendance.data.local.entity.StudentEntity
+import com.simpleattendance.databinding.ItemRosterCellBinding
+
+/** One student in the roster overview, with their roster position. */
+data class RosterCell(
+    val index: Int,
+    val student: StudentEntity,
+    val status: Byte,
+    val isCurrent: Boolean,
+    val isSelected: Boolean
+)
+
+/** Labels for the overview's section index, with the roster position each section starts at. */
+class RosterSections(val labels: Array<String>, val positions: IntArray) {
+    
+    companion object {
+        private const val BLOCK_SIZE = 25
+        
+        /**
+         * Sections by initial when every initial forms one run, as after sorting by name.
+         * Otherwise the roster is cut into blocks of [BLOCK_SIZE] labelled by position.
+         */
+        fun of(roster: List<StudentEntity>): RosterSections {
+            val labels = ArrayList<String>()
+            val positions = ArrayList<Int>()
+            val seen = HashSet<Char>()
+            var last = ' '
+            for (index in roster.indices) {
+                val initial = roster[index].name.trim().firstOrNull()?.uppercaseChar() ?: '#'
+                if (index > 0 && initial == last) continue
+                if (!seen.add(initial)) return blocks(roster.size)
+                labels.add(initial.toString())
+                positions.add(index)
+                last = initial
+            }
+            return RosterSections(labels.toTypedArray(), positions.toIntArray())
+        }
+        
+        private fun blocks(size: Int): RosterSections {
+            val starts = (0 until size step BLOCK_SIZE).toList()
+            return RosterSections(Array(starts.size) { "${starts[it] + 1}" }, starts.toIntArray())
+        }
+    }
+}
+
+/**
+ * Whole-roster overview, laid out as a grid or a list by the caller's layout manager.
+ * Cells have stable ids, and a change of status, selection or current student arrives
+ * as [PAYLOAD_STATE], so marking one student rebinds that one cell's chip and outline.
+ * Colors are resolved once here rather than per bind.
+ */
+class RosterAdapter(
+    context: Context,
+    private val onCellClick: (RosterCell) -> Unit,
+    private val onCellLongClick: (RosterCell) -> Unit
+) : ListAdapter<RosterCell, RosterAdapter.CellViewHolder>(DiffCallback()) {
+    
+    private val presentColor = ContextCompat.getColor(context, R.color.success_green)
+    private val absentColor = ContextCompat.getColor(context, R.color.error_red)
+    private val unmarkedColor = ContextCompat.getColor(context, R.color.text_tertiary)
+    private val borderColor = ContextCompat.getColor(context, R.color.glass_border)
+    private val currentColor = ContextCompat.getColor(context, R.color.text_secondary)
+    private val selectedColor = ContextCompat.getColor(context, R.color.primary)
+    private val cardColor = ContextCompat.getColor(context, R.color.card_background)
+    private val selectedCardColor = ContextCompat.getColor(context, R.color.primary_subtle)
+    
+    private val density = context.resources.displayMetrics.density
+    private val thinStroke = density.toInt().coerceAtLeast(1)
+    private val thickStroke = (2 * density).toInt()
+    
+    init {
+        setHasStableIds(true)
+    }
+    
+    companion object {
+        private const val PAYLOAD_STATE = "state"
+    }
+    
+    override fun getItemId(position: Int): Long = getItem(position).student.id
+    
+    override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): CellViewHolder {
+        val binding = ItemRosterCellBinding.inflate(LayoutInflater.from(parent.context), parent, false)
+        return CellViewHolder(binding)
+    }
+    
+    override fun onBindViewHolder(holder: CellViewHolder, position: Int) {
+        holder.bind(getItem(position))
+    }
+    
+    override fun onBindViewHolder(holder: CellViewHolder, position: Int, payloads: MutableList<Any>) {
+        if (PAYLOAD_STATE in payloads) {
+            // Same student in the same place; only the chip and outline change
+            holder.bindState(getItem(position))
+        } else {
+            onBindViewHolder(holder, position)
+        }
+    }
+    
+    inner class CellViewHolder(
+        private val binding: ItemRosterCellBinding
+    ) : RecyclerView.ViewHolder(binding.root) {
+        
+        private var cell: RosterCell? = null
+        
+        init {
+            binding.root.setOnClickListener { cell?.let(onCellClick) }
+            binding.root.setOnLongClickListener {
+                val cell = cell ?: return@setOnLongClickListener false
+                onCellLongClick(cell)
+                true
+            }
+        }
+        
+        fun bind(cell: RosterCell) {
+            binding.rollText.text = cell.student.rollNo.ifEmpty { "#${cell.index + 1}" }
+            binding.nameText.text = cell.student.name
+            bindState(cell)
+        }
+        
+        fun bindState(cell: RosterCell) {
+            this.cell = cell
+            when (cell.status) {
+                AttendanceStatus.PRESENT -> {
+                    binding.statusChip.text = "P"
+                    binding.statusChip.setTextColor(presentColor)
+                }
+                AttendanceStatus.ABSENT -> {
+                    binding.statusChip.text = "A"
+                    binding.statusChip.setTextColor(absentColor)
+                }
+                else -> {
+                    binding.statusChip.text = "–"
+                    binding.statusChip.setTextColor(unmarkedColor)
+                }
+            }
+            
+            val card = binding.root
+            card.setCardBackgroundColor(if (cell.isSelected) selectedCardColor else cardColor)
+            card.strokeColor = when {
+                cell.isSelected -> selectedColor
+                cell.isCurrent -> currentColor
+                else -> borderColor
+            }
+            card.strokeWidth = if (cell.isSelected || cell.isCurrent) thickStroke else thinStroke
+        }
+    }
+    
+    class DiffCallback : DiffUtil.ItemCallback<RosterCell>() {
+        override fun areItemsTheSame(oldItem: RosterCell, newItem: RosterCell): Boolean {
+            return oldItem.student.id == newItem.student.id
+        }
+        
+        override fun areContentsTheSame(oldItem: RosterCell, newItem: RosterCell): Boolean {
+            return oldItem == newItem
+        }
+        
+        override fun getChangePayload(oldItem: RosterCell, newItem: RosterCell): Any? {
+            if (oldItem.index == newItem.index && oldItem.student == newItem.student) {
+                return PAYLOAD_STATE
+            }
+            return null
+        }
+    }
+}
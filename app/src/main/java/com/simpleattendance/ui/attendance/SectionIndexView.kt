@@ -0,0 +1,112 @@
+package com.simpleattendance.ui.attendance
+
+import android.annotation.SuppressLint
+import android.content.Context
+import android.graphics.Canvas
+import android.graphics.Paint
+import android.util.AttributeSet
+import android.util.TypedValue
+import android.view.MotionEvent
+import android.view.View
+import androidx.core.content.ContextCompat
+import com.simpleattendance.R
+import kotlin.math.ceil
+
+/**
+ * Fast-scroll strip for the roster overview. Draws one label per section down its height;
+ * touching or dragging along it reports the roster position the section starts at.
+ * Labels that would not fit are skipped when drawing, but every section stays reachable.
+ */
+class SectionIndexView @JvmOverloads constructor(
+    context: Context,
+    attrs: AttributeSet? = null,
+    defStyleAttr: Int = 0
+) : View(context, attrs, defStyleAttr) {
+    
+    private var labels: Array<String> = emptyArray()
+    private var positions = IntArray(0)
+    
+    // Section under the finger, or -1 when the strip is not being touched
+    private var activeSection = -1
+    
+    var onSectionSelected: ((position: Int) -> Unit)? = null
+    
+    private val density = resources.displayMetrics.density
+    private val minLabelSpacing = 16 * density
+    
+    private val labelPaint = Paint(Paint.ANTI_ALIAS_FLAG).apply {
+        color = ContextCompat.getColor(context, R.color.text_secondary)
+        textSize = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 11f, resources.displayMetrics)
+        textAlign = Paint.Align.CENTER
+        isFakeBoldText = true
+    }
+    private val activePaint = Paint(labelPaint).apply {
+        color = ContextCompat.getColor(context, R.color.primary)
+    }
+    private val trackPaint = Paint(Paint.ANTI_ALIAS_FLAG).apply {
+        color = ContextCompat.getColor(context, R.color.background_secondary)
+    }
+    
+    /** Replaces the sections; [positions] holds the first roster position of each label. */
+    fun setSections(labels: Array<String>, positions: IntArray) {
+        this.labels = labels
+        this.positions = positions
+        activeSection = -1
+        invalidate()
+    }
+    
+    @SuppressLint("ClickableViewAccessibility")
+    override fun onTouchEvent(event: MotionEvent): Boolean {
+        if (labels.isEmpty()) return false
+        when (event.actionMasked) {
+            MotionEvent.ACTION_DOWN, MotionEvent.ACTION_MOVE -> {
+                parent?.requestDisallowInterceptTouchEvent(true)
+                val section = sectionAt(event.y)
+                if (section != activeSection) {
+                    activeSection = section
+                    onSectionSelected?.invoke(positions[section])
+                    invalidate()
+                }
+            }
+            MotionEvent.ACTION_UP, MotionEvent.ACTION_CANCEL -> {
+                activeSection = -1
+                invalidate()
+            }
+        }
+        return true
+    }
+    
+    private fun sectionAt(y: Float): Int {
+        val usable = (height - paddingTop - paddingBottom).coerceAtLeast(1)
+        val fraction = ((y - paddingTop) / usable).coerceIn(0f, 0.9999f)
+        return (fraction * labels.size).toInt()
+    }
+    
+    override fun onDraw(canvas: Canvas) {
+        super.onDraw(canvas)
+        val usable = (height - paddingTop - paddingBottom).toFloat()
+        if (labels.isEmpty() || usable <= 0f) return
+        val slot = usable / labels.size
+        // With more sections than room, draw every step-th label
+        val step = if (slot >= minLabelSpacing) 1 else ceil(minLabelSpacing / slot).toInt()
+        
+        if (activeSection >= 0) {
+            val radius = width / 2f
+            canvas.drawRoundRect(0f, 0f, width.toFloat(), height.toFloat(), radius, radius, trackPaint)
+        }
+        
+        val centerX = width / 2f
+        val textOffset = -(labelPaint.ascent() + labelPaint.descent()) / 2
+        var i = 0
+        while (i < labels.size) {
+            val centerY = paddingTop + slot * (i + 0.5f)
+            canvas.drawText(labels[i], centerX, centerY + textOffset, if (i == activeSection) activePaint else labelPaint)
+            i += step
+        }
+        // Keep the active label visible even when the step skips it
+        if (activeSection >= 0 && activeSection % step != 0) {
+            val centerY = paddingTop + slot * (activeSection + 0.5f)
+            canvas.drawText(labels[activeSection], centerX, centerY + textOffset, activePaint)
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.simpleattendance.ui.attendance
+
+import android.animation.ValueAnimator
+import android.content.Context
+import android.graphics.Canvas
+import android.graphics.Color
+import android.graphics.LinearGradient
+import android.graphics.Paint
+import android.graphics.Path
+import android.graphics.RectF
+import android.graphics.Shader
+import android.util.AttributeSet
+import android.view.View
+import android.view.animation.AccelerateDecelerateInterpolator
+import androidx.core.content.ContextCompat
+import com.simpleattendance.R
+
+/**
+ * Roll call progress bar: present, absent and remaining segments drawn on one rounded track,
+ * plus a glow that sweeps across after each mark. Updates only invalidate, never relayout.
+ */
+class SegmentedProgressView @JvmOverloads constructor(
+    context: Context,
+    attrs: AttributeSet? = null,
+    defStyleAttr: Int = 0
+) : View(context, attrs, defStyleAttr) {
+    
+    // Target fractions of the track, and where the current animation started from
+    private var presentFraction = 0f
+    private var absentFraction = 0f
+    private var presentStart = 0f
+    private var absentStart = 0f
+    
+    // Fractions as drawn on this frame
+    private var drawnPresent = 0f
+    private var drawnAbsent = 0f
+    
+    // Left edge of the glow as a fraction of the track, or NaN when no sweep is running
+    private var glowPosition = Float.NaN
+    private var glowAlpha = 0f
+    
+    private val density = resources.displayMetrics.density
+    private val cornerRadius = 6 * density
+    private val glowWidth = 40 * density
+    private val preferredHeight = (12 * density).toInt()
+    
+    private val presentColor = ContextCompat.getColor(context, R.color.success_green)
+    private val absentColor = ContextCompat.getColor(context, R.color.error_red)
+    
+    private val trackPaint = Paint(Paint.ANTI_ALIAS_FLAG).apply {
+        color = ContextCompat.getColor(context, R.color.background_tertiary)
+    }
+    private val presentPaint = Paint(Paint.ANTI_ALIAS_FLAG).apply { color = presentColor }
+    private val absentPaint = Paint(Paint.ANTI_ALIAS_FLAG).apply { color = absentColor }
+    private val glowPaint = Paint(Paint.ANTI_ALIAS_FLAG)
+    
+    // Glow gradients per mark color, rebuilt only when the height changes
+    private var presentGlow: Shader? = null
+    private var absentGlow: Shader? = null
+    
+    private val trackRect = RectF()
+    private val trackClip = Path()
+    
+    private val fillAnimator = ValueAnimator.ofFloat(0f, 1f).apply {
+        duration = 200
+        interpolator = AccelerateDecelerateInterpolator()
+        addUpdateListener { animation ->
+            val t = animation.animatedFraction
+            drawnPresent = presentStart + (presentFraction - presentStart) * t
+            drawnAbsent = absentStart + (absentFraction - absentStart) * t
+            invalidate()
+        }
+    }
+    
+    private val glowAnimator = ValueAnimator.ofFloat(0f, 1f).apply {
+        duration = 700
+        interpolator = AccelerateDecelerateInterpolator()
+        addUpdateListener { animation ->
+            val t = animation.animatedFraction
+            // Starts fully left of the track and ends past its right edge, fading out as in the old overlay
+            glowPosition = t
+            glowAlpha = 0.5f * (1f - t)
+            if (t >= 1f) glowPosition = Float.NaN
+            invalidate()
+        }
+    }
+    
+    /** Animates the segments to the given counts; a repeated value is a no-op. */
+    fun setCounts(present: Int, absent: Int, total: Int) {
+        if (total <= 0) return
+        val presentTarget = present.toFloat() / total
+        val absentTarget = absent.toFloat() / total
+        if (presentTarget == presentFraction && absentTarget == absentFraction) return
+        presentFraction = presentTarget
+        absentFraction = absentTarget
+        presentStart = drawnPresent
+        absentStart = drawnAbsent
+        fillAnimator.cancel()
+        fillAnimator.start()
+    }
+    
+    /** Sweeps a glow tinted for a present or absent mark across the bar. */
+    fun sweepGlow(isPresent: Boolean) {
+        glowPaint.shader = if (isPresent) presentGlow else absentGlow
+        glowAnimator.cancel()
+        glowAnimator.start()
+    }
+    
+    override fun onMeasure(widthMeasureSpec: Int, heightMeasureSpec: Int) {
+        val width = MeasureSpec.getSize(widthMeasureSpec)
+        val height = resolveSize(preferredHeight + paddingTop + paddingBottom, heightMeasureSpec)
+        setMeasuredDimension(width, height)
+    }
+    
+    override fun onSizeChanged(w: Int, h: Int, oldw: Int, oldh: Int) {
+        super.onSizeChanged(w, h, oldw, oldh)
+        trackRect.set(
+            paddingLeft.toFloat(),
+            paddingTop.toFloat(),
+            (w - paddingRight).toFloat(),
+            (h - paddingBottom).toFloat()
+        )
+        trackClip.reset()
+        trackClip.addRoundRect(trackRect, cornerRadius, cornerRadius, Path.Direction.CW)
+        // Checked against the old shaders, so a resize mid-sweep keeps the glow's color
+        val wasAbsent = glowPaint.shader === absentGlow
+        presentGlow = glowShader(presentColor)
+        absentGlow = glowShader(absentColor)
+        glowPaint.shader = if (wasAbsent) absentGlow else presentGlow
+    }
+    
+    // Transparent-color-transparent across one glow width, so the glow has soft edges
+    private fun glowShader(color: Int): Shader {
+        val clear = Color.argb(0, Color.red(color), Color.green(color), Color.blue(color))
+        return LinearGradient(
+            0f, 0f, glowWidth, 0f,
+            intArrayOf(clear, color, clear), null,
+            Shader.TileMode.CLAMP
+        )
+    }
+    
+    override fun onDetachedFromWindow() {
+        if (fillAnimator.isRunning) fillAnimator.end()
+        glowAnimator.cancel()
+        glowPosition = Float.NaN
+        super.onDetachedFromWindow()
+    }
+    
+    override fun onDraw(canvas: Canvas) {
+        super.onDraw(canvas)
+        val trackWidth = trackRect.width()
+        if (trackWidth <= 0f) return
+        
+        canvas.save()
+        canvas.clipPath(trackClip)
+        canvas.drawRect(trackRect, trackPaint)
+        
+        // Present runs from the start of the track, absent follows straight after it
+        val presentEnd = trackRect.left + trackWidth * drawnPresent
+        val absentEnd = presentEnd + trackWidth * drawnAbsent
+        if (presentEnd > trackRect.left) {
+            canvas.drawRect(trackRect.left, trackRect.top, presentEnd, trackRect.bottom, presentPaint)
+        }
+        if (absentEnd > presentEnd) {
+            canvas.drawRect(presentEnd, trackRect.top, absentEnd, trackRect.bottom, absentPaint)
+        }
+        
+        if (!glowPosition.isNaN()) {
+            val glowLeft = trackRect.left - glowWidth + (trackWidth + glowWidth) * glowPosition
+            glowPaint.alpha = (glowAlpha * 255).toInt()
+            canvas.translate(glowLeft, 0f)
+            canvas.drawRect(0f, trackRect.top, glowWidth, trackRect.bottom, glowPaint)
+        }
+        canvas.restore()
+    }
+}
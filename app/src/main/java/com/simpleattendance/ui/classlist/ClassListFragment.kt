@@ -12,11 +12,13 @@ import androidx.lifecycle.lifecycleScope
 import androidx.lifecycle.repeatOnLifecycle
 import androidx.recyclerview.widget.LinearLayoutManager
 import com.google.android.material.dialog.MaterialAlertDialogBuilder
+import com.simpleattendance.R
 import com.simpleattendance.data.local.entity.ClassEntity
 import com.simpleattendance.databinding.FragmentClassListBinding
 import com.simpleattendance.ui.attendance.AttendanceActivity
 import com.simpleattendance.ui.createclass.CreateClassActivity
 import com.simpleattendance.ui.classlist.ClassListViewModel
+import com.simpleattendance.util.AnimationUtils
 import com.simpleattendance.util.HapticUtils
 import dagger.hilt.android.AndroidEntryPoint
 import kotlinx.coroutines.launch
@@ -28,6 +30,9 @@ class ClassListFragment : Fragment() {
     private var _binding: FragmentClassListBinding? = null
     private val binding get() = _binding!!
     
+    // Empty-state animation, run only while the empty state is on screen
+    private var emptyAnimation: AnimationUtils.LottieWhileShown? = null
+    
     private val viewModel: ClassListViewModel by activityViewModels()
     
     @Inject
@@ -61,6 +66,7 @@ class ClassListFragment : Fragment() {
     
     override fun onViewCreated(view: View, savedInstanceState: Bundle?) {
         super.onViewCreated(view, savedInstanceState)
+        emptyAnimation = AnimationUtils.LottieWhileShown(viewLifecycleOwner, binding.emptyLottieView, R.raw.empty_classes)
         setupRecyclerView()
         observeState()
     }
@@ -79,6 +85,7 @@ class ClassListFragment : Fragment() {
                 viewModel.uiState.collect { state ->
                     binding.progressBar.visibility = if (state.isLoading) View.VISIBLE else View.GONE
                     binding.emptyState.visibility = if (state.isEmpty && !state.isLoading) View.VISIBLE else View.GONE
+                    emptyAnimation?.update()
                     binding.recyclerView.visibility = if (!state.isEmpty && !state.isLoading) View.VISIBLE else View.GONE
                     
                     classAdapter.submitList(state.groupedClasses)
@@ -139,6 +146,7 @@ class ClassListFragment : Fragment() {
     
     override fun onDestroyView() {
         super.onDestroyView()
+        emptyAnimation = null
         _binding = null
     }
 }
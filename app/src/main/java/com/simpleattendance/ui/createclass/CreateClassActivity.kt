@@ -14,7 +14,6 @@ import androidx.lifecycle.repeatOnLifecycle
 import com.google.android.material.dialog.MaterialAlertDialogBuilder
 import com.simpleattendance.R
 import com.simpleattendance.databinding.ActivityCreateClassBinding
-import com.simpleattendance.util.CsvParser
 import com.simpleattendance.util.HapticUtils
 import dagger.hilt.android.AndroidEntryPoint
 import kotlinx.coroutines.launch
@@ -119,7 +118,15 @@ class CreateClassActivity : AppCompatActivity() {
                     }
                     
                     // Update CSV status
-                    if (state.students.isNotEmpty()) {
+                    if (state.importProgress != null) {
+                        binding.studentCountText.visibility = View.VISIBLE
+                        val found = if (state.students.isNotEmpty()) " (${state.students.size} found)" else ""
+                        binding.studentCountText.text = if (state.importProgress >= 0) {
+                            "Importing students... ${state.importProgress}%$found"
+                        } else {
+                            "Importing students...$found"
+                        }
+                    } else if (state.students.isNotEmpty()) {
                         binding.studentCountText.visibility = View.VISIBLE
                         val statusText = if (state.csvFileName != null) {
                             "${state.students.size} students loaded from ${state.csvFileName}"
@@ -150,6 +157,12 @@ class CreateClassActivity : AppCompatActivity() {
                         binding.csvBorderAnimation.visibility = android.view.View.GONE
                     }
                     
+                    // Handle import success
+                    state.importedCount?.let {
+                        hapticUtils.successPattern()
+                        viewModel.clearImportResult()
+                    }
+                    
                     // Handle save success
                     state.savedClassId?.let {
                         hapticUtils.successPattern()
@@ -157,6 +170,12 @@ class CreateClassActivity : AppCompatActivity() {
                         finish()
                     }
                     
+                    // Skipped rows of a successful import: shown, but without a second haptic
+                    state.warning?.let {
+                        Toast.makeText(this@CreateClassActivity, it, Toast.LENGTH_LONG).show()
+                        viewModel.clearWarning()
+                    }
+                    
                     // Handle errors
                     state.error?.let {
                         hapticUtils.errorPattern()
@@ -169,18 +188,8 @@ class CreateClassActivity : AppCompatActivity() {
     }
     
     private fun handleCsvFile(uri: Uri) {
-        val result = CsvParser.parseStudentsCsv(contentResolver, uri)
-        result.fold(
-            onSuccess = { students ->
-                hapticUtils.successPattern()
-                val fileName = uri.lastPathSegment ?: "CSV File"
-                viewModel.setStudents(students, fileName)
-            },
-            onFailure = { error ->
-                hapticUtils.errorPattern()
-                viewModel.setCsvError(error.message ?: "Failed to parse CSV file")
-            }
-        )
+        val fileName = uri.lastPathSegment ?: "CSV File"
+        viewModel.importCsv(contentResolver, uri, fileName)
     }
     
     private fun showFormatInfo() {
@@ -199,6 +208,8 @@ class CreateClassActivity : AppCompatActivity() {
                 
                 • Header row is automatically detected and skipped
                 • Empty rows are ignored
+                • Quoted names like "Doe, John" are supported
+                • Comma, semicolon and tab separators are detected
             """.trimIndent())
             .setPositiveButton("Got it", null)
             .show()
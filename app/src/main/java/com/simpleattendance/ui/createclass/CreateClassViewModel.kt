@@ -1,13 +1,18 @@
 package com.simpleattendance.ui.createclass
 
+import android.content.ContentResolver
 import android.net.Uri
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
 import com.simpleattendance.data.local.entity.ClassEntity
 import com.simpleattendance.data.local.entity.StudentEntity
 import com.simpleattendance.data.repository.AttendanceRepository
+import com.simpleattendance.util.CsvImportEvent
+import com.simpleattendance.util.CsvParser
 import com.simpleattendance.util.StudentCsvRow
 import dagger.hilt.android.lifecycle.HiltViewModel
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.Job
 import kotlinx.coroutines.flow.*
 import kotlinx.coroutines.launch
 import javax.inject.Inject
@@ -25,9 +30,39 @@ data class CreateClassUiState(
     val isSaving: Boolean = false,
     val isValid: Boolean = false,
     val savedClassId: Long? = null,
-    val error: String? = null
+    val error: String? = null,
+    val warning: String? = null, // Rows skipped by an import that still succeeded
+    val importProgress: Int? = null, // 0-100 while a CSV import runs, -1 if the size is unknown
+    val importedCount: Int? = null // Set once when an import finishes successfully
 )
 
+/**
+ * Read-only view over the batches of a running import, in file order. Each batch is
+ * kept as the parser emitted it, so publishing a longer roster copies no rows.
+ */
+private class ImportedRows(private val batches: List<List<StudentCsvRow>>) : AbstractList<StudentCsvRow>() {
+    
+    // Row count up to and including each batch
+    private val ends = IntArray(batches.size).also { ends ->
+        var total = 0
+        for (i in batches.indices) {
+            total += batches[i].size
+            ends[i] = total
+        }
+    }
+    
+    override val size: Int
+        get() = if (ends.isEmpty()) 0 else ends[ends.size - 1]
+    
+    override fun get(index: Int): StudentCsvRow {
+        if (index < 0 || index >= size) throw IndexOutOfBoundsException("Index $index, size $size")
+        var batch = ends.binarySearch(index + 1)
+        if (batch < 0) batch = -batch - 1
+        val start = if (batch == 0) 0 else ends[batch - 1]
+        return batches[batch][index - start]
+    }
+}
+
 @HiltViewModel
 class CreateClassViewModel @Inject constructor(
     private val repository: AttendanceRepository
@@ -36,6 +71,11 @@ class CreateClassViewModel @Inject constructor(
     private val _uiState = MutableStateFlow(CreateClassUiState())
     val uiState: StateFlow<CreateClassUiState> = _uiState.asStateFlow()
     
+    private var importJob: Job? = null
+    
+    // Students and file name from before the running import, restored if it fails
+    private var importBaseline: Pair<List<StudentCsvRow>, String?>? = null
+    
     fun loadClassForEdit(classId: Long) {
         viewModelScope.launch {
             repository.getClassById(classId)?.let { classEntity ->
@@ -99,6 +139,97 @@ class CreateClassViewModel @Inject constructor(
         validateForm()
     }
     
+    /**
+     * Imports a roster CSV in the background. The students list starts empty and each batch
+     * of rows is published to it as it arrives; Save stays disabled until the file is done.
+     * A failed import restores the previous students. Imports stop at [MAX_IMPORT_ROWS] students.
+     */
+    fun importCsv(contentResolver: ContentResolver, uri: Uri, fileName: String) {
+        importJob?.cancel()
+        // A replaced import never finished, so the baseline from before it still stands
+        val baseline = importBaseline ?: _uiState.value.let { it.students to it.csvFileName }
+        importBaseline = baseline
+        _uiState.update { it.copy(students = emptyList(), importProgress = 0, isValid = false) }
+        
+        importJob = viewModelScope.launch {
+            val batches = ArrayList<List<StudentCsvRow>>()
+            var rowCount = 0
+            var truncated = false
+            var firstError: CsvImportEvent.RowError? = null
+            var errorCount = 0
+            
+            try {
+                CsvParser.streamStudentsCsv(contentResolver, uri)
+                    .takeWhile { !truncated } // Closes the file once the cap is reached
+                    .collect { event ->
+                        when (event) {
+                            is CsvImportEvent.Rows -> {
+                                val room = MAX_IMPORT_ROWS - rowCount
+                                val rows = if (event.rows.size > room) {
+                                    truncated = true
+                                    event.rows.subList(0, room)
+                                } else event.rows
+                                if (rows.isNotEmpty()) {
+                                    batches.add(rows)
+                                    rowCount += rows.size
+                                    _uiState.update { it.copy(students = ImportedRows(batches.toList()), csvFileName = fileName) }
+                                }
+                            }
+                            is CsvImportEvent.Progress -> {
+                                val percent = if (event.totalBytes > 0) {
+                                    (event.bytesRead * 100 / event.totalBytes).toInt().coerceIn(0, 100)
+                                } else -1
+                                _uiState.update { it.copy(importProgress = percent) }
+                            }
+                            is CsvImportEvent.RowError -> {
+                                if (firstError == null) firstError = event
+                                errorCount++
+                            }
+                            is CsvImportEvent.Finished -> Unit
+                        }
+                    }
+            } catch (e: CancellationException) {
+                // A newer import replaced this one; leave its state alone
+                throw e
+            } catch (e: Exception) {
+                failImport(baseline, e.message ?: "Failed to parse CSV file")
+                return@launch
+            }
+            
+            if (rowCount == 0) {
+                failImport(baseline, "No valid student data found in CSV")
+                return@launch
+            }
+            
+            importBaseline = null
+            val warnings = ArrayList<String>(2)
+            firstError?.let {
+                warnings.add("Skipped $errorCount row${if (errorCount > 1) "s" else ""} (line ${it.lineNumber}: ${it.message})")
+            }
+            if (truncated) warnings.add("Stopped at $MAX_IMPORT_ROWS students")
+            _uiState.update {
+                it.copy(
+                    importProgress = null,
+                    importedCount = rowCount,
+                    warning = if (warnings.isEmpty()) null else warnings.joinToString("\n")
+                )
+            }
+            validateForm()
+        }
+    }
+    
+    private fun failImport(baseline: Pair<List<StudentCsvRow>, String?>, message: String) {
+        importBaseline = null
+        _uiState.update {
+            it.copy(students = baseline.first, csvFileName = baseline.second, importProgress = null, error = message)
+        }
+        validateForm()
+    }
+    
+    fun clearImportResult() {
+        _uiState.update { it.copy(importedCount = null) }
+    }
+    
     fun setCsvError(error: String) {
         _uiState.update { it.copy(error = error) }
     }
@@ -107,9 +238,14 @@ class CreateClassViewModel @Inject constructor(
         _uiState.update { it.copy(error = null) }
     }
     
+    fun clearWarning() {
+        _uiState.update { it.copy(warning = null) }
+    }
+    
     private fun validateForm() {
         val state = _uiState.value
-        val isValid = state.branch.isNotBlank() &&
+        val isValid = state.importProgress == null &&
+                state.branch.isNotBlank() &&
                 state.semester.isNotBlank() &&
                 state.section.isNotBlank() &&
                 state.subject.isNotBlank() &&
@@ -125,6 +261,14 @@ class CreateClassViewModel @Inject constructor(
         
         viewModelScope.launch {
             try {
+                fun studentEntities(classId: Long) = state.students.map { csv ->
+                    StudentEntity(
+                        classId = classId,
+                        rollNo = csv.rollNo,
+                        name = csv.name
+                    )
+                }
+                
                 val classId = if (state.isEditing && state.editingClassId != null) {
                     // Update existing class
                     val updatedClass = ClassEntity(
@@ -134,8 +278,9 @@ class CreateClassViewModel @Inject constructor(
                         section = state.section.trim(),
                         subject = state.subject.trim()
                     )
-                    repository.updateClass(updatedClass)
-                    repository.deleteStudentsByClass(state.editingClassId)
+                    // Merge instead of replacing so existing students keep their ids and history;
+                    // header and roster are written in one transaction
+                    repository.updateClassAndMergeRoster(updatedClass, studentEntities(state.editingClassId))
                     state.editingClassId
                 } else {
                     // Create new class
@@ -145,23 +290,22 @@ class CreateClassViewModel @Inject constructor(
                         section = state.section.trim(),
                         subject = state.subject.trim()
                     )
-                    repository.insertClass(newClass)
+                    val newClassId = repository.insertClass(newClass)
+                    repository.insertStudents(studentEntities(newClassId))
+                    newClassId
                 }
                 
-                // Insert students
-                val studentEntities = state.students.map { csv ->
-                    StudentEntity(
-                        classId = classId,
-                        rollNo = csv.rollNo,
-                        name = csv.name
-                    )
-                }
-                repository.insertStudents(studentEntities)
-                
                 _uiState.update { it.copy(isSaving = false, savedClassId = classId) }
+            } catch (e: CancellationException) {
+                throw e
             } catch (e: Exception) {
                 _uiState.update { it.copy(isSaving = false, error = e.message) }
             }
         }
     }
+    
+    companion object {
+        // Well past any class, and inside the 16-bit roster positions the undo journal packs
+        private const val MAX_IMPORT_ROWS = 10_000
+    }
 }
@@ -11,6 +11,7 @@ import androidx.core.content.ContextCompat
 import androidx.recyclerview.widget.RecyclerView
 import com.simpleattendance.R
 import com.simpleattendance.data.local.entity.AttendanceSessionEntity
+import com.simpleattendance.data.local.model.SessionWithClass
 import com.simpleattendance.databinding.ItemDateHeaderBinding
 import com.simpleattendance.databinding.ItemHistorySessionBinding
 import java.text.SimpleDateFormat
@@ -18,34 +19,37 @@ import java.util.*
 
 sealed class HistoryListItem {
     data class DateHeader(
+        val epochDay: Long,
         val date: String,
-        val dateMillis: Long,
         val isToday: Boolean,
         val sessionCount: Int,
-        var isExpanded: Boolean = true
+        val isExpanded: Boolean
     ) : HistoryListItem()
     
     data class Session(
         val sessionWithClass: SessionWithClass,
-        val dateKey: String
+        val epochDay: Long
     ) : HistoryListItem()
 }
 
+/**
+ * Shows History as day headers followed by that day's sessions. The flat item list is
+ * built off the main thread by [HistoryViewModel] and diffed on the differ's shared
+ * background executor, so expanding or collapsing a day only inserts or removes that
+ * day's rows.
+ */
 class GroupedHistoryAdapter(
     private val onSessionClick: (AttendanceSessionEntity) -> Unit,
-    private val onSessionLongClick: (AttendanceSessionEntity) -> Unit
+    private val onSessionLongClick: (AttendanceSessionEntity) -> Unit,
+    private val onDayToggle: (Long) -> Unit
 ) : ListAdapter<HistoryListItem, RecyclerView.ViewHolder>(DiffCallback()) {
     
-    private val dateFormat = SimpleDateFormat("dd MMM yyyy", Locale.getDefault())
-    private val dayFormat = SimpleDateFormat("EEEE", Locale.getDefault())
     private val timeFormat = SimpleDateFormat("hh:mm a", Locale.getDefault())
     
-    private val expandedDates = mutableSetOf<String>()
-    private var allSessions: List<SessionWithClass> = emptyList()
-    
     companion object {
         private const val VIEW_TYPE_HEADER = 0
         private const val VIEW_TYPE_SESSION = 1
+        private const val PAYLOAD_EXPANSION = "expansion"
     }
     
     override fun getItemViewType(position: Int): Int {
@@ -79,135 +83,13 @@ class GroupedHistoryAdapter(
         }
     }
     
-    fun setSessionsGroupedByDate(sessions: List<SessionWithClass>) {
-        allSessions = sessions
-        rebuildList()
-    }
-    
-    private fun rebuildList() {
-        val today = Calendar.getInstance().apply {
-            set(Calendar.HOUR_OF_DAY, 0)
-            set(Calendar.MINUTE, 0)
-            set(Calendar.SECOND, 0)
-            set(Calendar.MILLISECOND, 0)
-        }.timeInMillis
-        
-        // Group sessions by date
-        val groupedSessions = allSessions.groupBy { session ->
-            val cal = Calendar.getInstance().apply {
-                timeInMillis = session.session.date
-                set(Calendar.HOUR_OF_DAY, 0)
-                set(Calendar.MINUTE, 0)
-                set(Calendar.SECOND, 0)
-                set(Calendar.MILLISECOND, 0)
-            }
-            cal.timeInMillis
-        }.toSortedMap(compareByDescending { it })
-        
-        // Build list items
-        val items = mutableListOf<HistoryListItem>()
-        
-        groupedSessions.forEach { (dateMillis, sessionsForDate) ->
-            val isToday = dateMillis == today
-            val dateKey = dateFormat.format(Date(dateMillis))
-            
-            // Initialize expanded state - today expanded by default, others collapsed
-            // Only set default on first load (when expandedDates doesn't have any entry for this date yet)
-            val isExpanded = if (expandedDates.isEmpty() && isToday) {
-                expandedDates.add(dateKey)
-                true
-            } else {
-                expandedDates.contains(dateKey)
-            }
-            
-            // Add date header
-            val header = HistoryListItem.DateHeader(
-                date = if (isToday) "Today" else dateKey,
-                dateMillis = dateMillis,
-                isToday = isToday,
-                sessionCount = sessionsForDate.size,
-                isExpanded = isExpanded
-            )
-            items.add(header)
-            
-            // Add sessions if expanded
-            if (isExpanded) {
-                sessionsForDate.forEach { sessionWithClass ->
-                    items.add(HistoryListItem.Session(sessionWithClass, dateKey))
-                }
-            }
-        }
-        
-        submitList(items)
-    }
-    
-    private fun toggleDateExpansion(dateKey: String) {
-        android.util.Log.d("GroupedHistoryAdapter", "toggleDateExpansion called for: $dateKey")
-        android.util.Log.d("GroupedHistoryAdapter", "expandedDates before: $expandedDates")
-        
-        if (expandedDates.contains(dateKey)) {
-            expandedDates.remove(dateKey)
+    override fun onBindViewHolder(holder: RecyclerView.ViewHolder, position: Int, payloads: MutableList<Any>) {
+        val item = getItem(position)
+        if (PAYLOAD_EXPANSION in payloads && holder is DateHeaderViewHolder && item is HistoryListItem.DateHeader) {
+            // The arrow is already animating from the tap; only the bound header changes
+            holder.header = item
         } else {
-            expandedDates.add(dateKey)
-        }
-        
-        android.util.Log.d("GroupedHistoryAdapter", "expandedDates after: $expandedDates")
-        
-        // Rebuild with new expansion state
-        rebuildListAndNotify()
-    }
-    
-    private fun rebuildListAndNotify() {
-        val today = Calendar.getInstance().apply {
-            set(Calendar.HOUR_OF_DAY, 0)
-            set(Calendar.MINUTE, 0)
-            set(Calendar.SECOND, 0)
-            set(Calendar.MILLISECOND, 0)
-        }.timeInMillis
-        
-        // Group sessions by date
-        val groupedSessions = allSessions.groupBy { session ->
-            val cal = Calendar.getInstance().apply {
-                timeInMillis = session.session.date
-                set(Calendar.HOUR_OF_DAY, 0)
-                set(Calendar.MINUTE, 0)
-                set(Calendar.SECOND, 0)
-                set(Calendar.MILLISECOND, 0)
-            }
-            cal.timeInMillis
-        }.toSortedMap(compareByDescending { it })
-        
-        // Build list items
-        val items = mutableListOf<HistoryListItem>()
-        
-        groupedSessions.forEach { (dateMillis, sessionsForDate) ->
-            val isToday = dateMillis == today
-            val dateKey = dateFormat.format(Date(dateMillis))
-            val isExpanded = expandedDates.contains(dateKey)
-            
-            // Add date header
-            val header = HistoryListItem.DateHeader(
-                date = if (isToday) "Today" else dateKey,
-                dateMillis = dateMillis,
-                isToday = isToday,
-                sessionCount = sessionsForDate.size,
-                isExpanded = isExpanded
-            )
-            items.add(header)
-            
-            // Add sessions if expanded
-            if (isExpanded) {
-                sessionsForDate.forEach { sessionWithClass ->
-                    items.add(HistoryListItem.Session(sessionWithClass, dateKey))
-                }
-            }
-        }
-        
-        android.util.Log.d("GroupedHistoryAdapter", "Submitting ${items.size} items")
-        
-        // Use submitList with a callback to ensure it completes
-        submitList(items.toList()) {
-            android.util.Log.d("GroupedHistoryAdapter", "submitList completed")
+            onBindViewHolder(holder, position)
         }
     }
     
@@ -215,22 +97,13 @@ class GroupedHistoryAdapter(
         private val binding: ItemDateHeaderBinding
     ) : RecyclerView.ViewHolder(binding.root) {
         
-        fun bind(header: HistoryListItem.DateHeader) {
-            binding.dateText.text = header.date
-            binding.countText.text = "${header.sessionCount} session${if (header.sessionCount > 1) "s" else ""}"
-            
-            // Rotate arrow based on expansion state
-            binding.expandIcon.rotation = if (header.isExpanded) 180f else 0f
-            
+        var header: HistoryListItem.DateHeader? = null
+        
+        init {
             binding.dateCard.setOnClickListener {
+                val header = header ?: return@setOnClickListener
                 com.simpleattendance.util.AnimationUtils.applySpringScale(it)
                 it.performHapticFeedback(android.view.HapticFeedbackConstants.KEYBOARD_TAP)
-
-                val actualDateKey = if (header.isToday) {
-                    dateFormat.format(Date(header.dateMillis))
-                } else {
-                    header.date
-                }
                 
                 // Animate arrow
                 val targetRotation = if (header.isExpanded) 0f else 180f
@@ -240,9 +113,18 @@ class GroupedHistoryAdapter(
                     start()
                 }
                 
-                toggleDateExpansion(actualDateKey)
+                onDayToggle(header.epochDay)
             }
         }
+        
+        fun bind(header: HistoryListItem.DateHeader) {
+            this.header = header
+            binding.dateText.text = header.date
+            binding.countText.text = "${header.sessionCount} session${if (header.sessionCount > 1) "s" else ""}"
+            
+            // Rotate arrow based on expansion state
+            binding.expandIcon.rotation = if (header.isExpanded) 180f else 0f
+        }
     }
     
     inner class SessionViewHolder(
@@ -285,7 +167,7 @@ class GroupedHistoryAdapter(
         override fun areItemsTheSame(oldItem: HistoryListItem, newItem: HistoryListItem): Boolean {
             return when {
                 oldItem is HistoryListItem.DateHeader && newItem is HistoryListItem.DateHeader ->
-                    oldItem.dateMillis == newItem.dateMillis
+                    oldItem.epochDay == newItem.epochDay
                 oldItem is HistoryListItem.Session && newItem is HistoryListItem.Session ->
                     oldItem.sessionWithClass.session.id == newItem.sessionWithClass.session.id
                 else -> false
@@ -295,5 +177,14 @@ class GroupedHistoryAdapter(
         override fun areContentsTheSame(oldItem: HistoryListItem, newItem: HistoryListItem): Boolean {
             return oldItem == newItem
         }
+        
+        override fun getChangePayload(oldItem: HistoryListItem, newItem: HistoryListItem): Any? {
+            if (oldItem is HistoryListItem.DateHeader && newItem is HistoryListItem.DateHeader &&
+                oldItem == newItem.copy(isExpanded = oldItem.isExpanded)
+            ) {
+                return PAYLOAD_EXPANSION
+            }
+            return null
+        }
     }
 }
@@ -11,13 +11,20 @@ import androidx.lifecycle.Lifecycle
 import androidx.lifecycle.lifecycleScope
 import androidx.lifecycle.repeatOnLifecycle
 import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
+import com.google.android.material.datepicker.MaterialDatePicker
 import com.google.android.material.dialog.MaterialAlertDialogBuilder
+import com.simpleattendance.R
 import com.simpleattendance.data.local.entity.AttendanceSessionEntity
 import com.simpleattendance.databinding.FragmentHistoryBinding
 import com.simpleattendance.ui.report.ReportActivity
+import com.simpleattendance.util.AnimationUtils
 import com.simpleattendance.util.HapticUtils
 import dagger.hilt.android.AndroidEntryPoint
 import kotlinx.coroutines.launch
+import java.text.SimpleDateFormat
+import java.util.Date
+import java.util.Locale
 import javax.inject.Inject
 
 @AndroidEntryPoint
@@ -26,6 +33,9 @@ class HistoryFragment : Fragment() {
     private var _binding: FragmentHistoryBinding? = null
     private val binding get() = _binding!!
     
+    // Empty-state animation, run only while the empty state is on screen
+    private var emptyAnimation: AnimationUtils.LottieWhileShown? = null
+    
     private val viewModel: HistoryViewModel by viewModels()
     
     @Inject
@@ -40,6 +50,8 @@ class HistoryFragment : Fragment() {
         )
     }
     
+    private val rangeFormat = SimpleDateFormat("dd MMM", Locale.getDefault())
+    
     private val historyAdapter by lazy {
         GroupedHistoryAdapter(
             onSessionClick = { session ->
@@ -49,6 +61,9 @@ class HistoryFragment : Fragment() {
             onSessionLongClick = { session ->
                 hapticUtils.mediumImpact()
                 confirmDelete(session)
+            },
+            onDayToggle = { epochDay ->
+                viewModel.toggleDay(epochDay)
             }
         )
     }
@@ -64,7 +79,9 @@ class HistoryFragment : Fragment() {
     
     override fun onViewCreated(view: View, savedInstanceState: Bundle?) {
         super.onViewCreated(view, savedInstanceState)
+        emptyAnimation = AnimationUtils.LottieWhileShown(viewLifecycleOwner, binding.emptyLottieView, R.raw.empty_history)
         setupRecyclerView()
+        setupRangeChips()
         observeState()
     }
     
@@ -73,6 +90,13 @@ class HistoryFragment : Fragment() {
             layoutManager = LinearLayoutManager(requireContext())
             adapter = historyAdapter
             setHasFixedSize(false)
+            
+            // Read the next page of history as either end of the loaded window comes into view
+            addOnScrollListener(object : RecyclerView.OnScrollListener() {
+                override fun onScrolled(recyclerView: RecyclerView, dx: Int, dy: Int) {
+                    if (dy > 0) maybeLoadMore() else if (dy < 0) maybeLoadNewer()
+                }
+            })
         }
         
         binding.classFilterChips.apply {
@@ -96,19 +120,82 @@ class HistoryFragment : Fragment() {
         }
     }
     
+    private fun setupRangeChips() {
+        binding.chipRangeAll.setOnClickListener { onRangeSelected(HistoryRange.ALL) }
+        binding.chipRangeWeek.setOnClickListener { onRangeSelected(HistoryRange.THIS_WEEK) }
+        binding.chipRangeMonth.setOnClickListener { onRangeSelected(HistoryRange.THIS_MONTH) }
+        binding.chipRangeCustom.setOnClickListener {
+            hapticUtils.lightTap()
+            showRangePicker()
+        }
+    }
+    
+    private fun onRangeSelected(range: HistoryRange) {
+        hapticUtils.lightTap()
+        viewModel.setRange(range)
+    }
+    
+    private fun showRangePicker() {
+        val picker = MaterialDatePicker.Builder.dateRangePicker()
+            .setTitleText("Select date range")
+            .build()
+        picker.addOnPositiveButtonClickListener { selection ->
+            val start = selection.first ?: return@addOnPositiveButtonClickListener
+            viewModel.setCustomRange(start, selection.second ?: start)
+        }
+        // Put the chip back on the active range if the picker is dismissed
+        picker.addOnDismissListener {
+            _binding?.let { syncRangeChips(viewModel.uiState.value) }
+        }
+        picker.show(childFragmentManager, "history_range")
+    }
+    
+    private fun syncRangeChips(state: HistoryUiState) {
+        val chipId = when (state.range) {
+            HistoryRange.ALL -> binding.chipRangeAll.id
+            HistoryRange.THIS_WEEK -> binding.chipRangeWeek.id
+            HistoryRange.THIS_MONTH -> binding.chipRangeMonth.id
+            HistoryRange.CUSTOM -> binding.chipRangeCustom.id
+        }
+        if (binding.rangeChips.checkedChipId != chipId) binding.rangeChips.check(chipId)
+        binding.chipRangeCustom.text = if (state.range == HistoryRange.CUSTOM) {
+            "${rangeFormat.format(Date(state.rangeStart))} - ${rangeFormat.format(Date(state.rangeEnd))}"
+        } else {
+            "Custom range"
+        }
+    }
+    
+    private fun maybeLoadMore() {
+        val layoutManager = binding.recyclerView.layoutManager as? LinearLayoutManager ?: return
+        val lastVisible = layoutManager.findLastVisibleItemPosition()
+        if (lastVisible >= historyAdapter.itemCount - LOAD_MORE_THRESHOLD) viewModel.loadMore()
+    }
+    
+    private fun maybeLoadNewer() {
+        val layoutManager = binding.recyclerView.layoutManager as? LinearLayoutManager ?: return
+        if (layoutManager.findFirstVisibleItemPosition() <= LOAD_MORE_THRESHOLD) viewModel.loadNewer()
+    }
+    
     private fun observeState() {
         viewLifecycleOwner.lifecycleScope.launch {
-            repeatOnLifecycle(Lifecycle.State.STARTED) {
+            // Only subscribe while this tab is the current page, so History's queries don't run at cold start
+            repeatOnLifecycle(Lifecycle.State.RESUMED) {
                 viewModel.uiState.collect { state ->
                     binding.emptyState.visibility = if (state.isEmpty && !state.isLoading) View.VISIBLE else View.GONE
+                    emptyAnimation?.update()
                     binding.recyclerView.visibility = if (!state.isEmpty && !state.isLoading) View.VISIBLE else View.GONE
                     
                     // Submit classes to horizontal filter chips
                     filterChipsAdapter.submitClasses(state.classes)
                     filterChipsAdapter.setSelectedClassId(state.selectedClassId)
+                    syncRangeChips(state)
                     
                     // Use grouped adapter
-                    historyAdapter.setSessionsGroupedByDate(state.sessions)
+                    historyAdapter.submitList(state.items)
+                    
+                    // A short or mostly collapsed list may not fill the screen, so no scroll would trigger it.
+                    // Once the window has let go of its top it only moves on scrolls, so it can't walk off.
+                    if (state.hasMore && !state.hasNewer) binding.recyclerView.post { _binding?.let { maybeLoadMore() } }
                 }
             }
         }
@@ -135,6 +222,11 @@ class HistoryFragment : Fragment() {
     
     override fun onDestroyView() {
         super.onDestroyView()
+        emptyAnimation = null
         _binding = null
     }
+    
+    companion object {
+        private const val LOAD_MORE_THRESHOLD = 10
+    }
 }
@@ -4,58 +4,103 @@ import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
 import com.simpleattendance.data.local.entity.AttendanceSessionEntity
 import com.simpleattendance.data.local.entity.ClassEntity
+import com.simpleattendance.data.local.model.SessionKey
+import com.simpleattendance.data.local.model.SessionWithClass
 import com.simpleattendance.data.repository.AttendanceRepository
 import dagger.hilt.android.lifecycle.HiltViewModel
+import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.Job
 import kotlinx.coroutines.flow.*
 import kotlinx.coroutines.launch
+import java.text.SimpleDateFormat
+import java.util.Calendar
+import java.util.Date
+import java.util.Locale
+import java.util.TimeZone
 import javax.inject.Inject
 
-data class SessionWithClass(
-    val session: AttendanceSessionEntity,
-    val classEntity: ClassEntity?
-)
+enum class HistoryRange { ALL, THIS_WEEK, THIS_MONTH, CUSTOM }
 
 data class HistoryUiState(
-    val sessions: List<SessionWithClass> = emptyList(),
+    val items: List<HistoryListItem> = emptyList(),
     val classes: List<ClassEntity> = emptyList(),
     val selectedClassId: Long? = null,
+    val range: HistoryRange = HistoryRange.ALL,
+    val rangeStart: Long = 0L,
+    val rangeEnd: Long = Long.MAX_VALUE,
+    val hasNewer: Boolean = false,
+    val hasMore: Boolean = false,
     val isLoading: Boolean = true,
     val isEmpty: Boolean = false
 )
 
+/**
+ * Filters plus the (date, id) keys bounding the loaded window. The window runs from just after
+ * ([startDate], [startId]) down to and including ([endDate], [endId]); [endDate] is null until the
+ * first page is read. [pages] counts the pages inside the window, which is capped at MAX_PAGES.
+ */
+private data class HistoryQuery(
+    val classId: Long? = null,
+    val range: HistoryRange = HistoryRange.ALL,
+    val from: Long = 0L,
+    val to: Long = Long.MAX_VALUE,
+    val startDate: Long = to,
+    val startId: Long = Long.MAX_VALUE,
+    val endDate: Long? = null,
+    val endId: Long = 0L,
+    val pages: Int = 0,
+    val hasNewer: Boolean = false,
+    val hasMore: Boolean = false
+)
+
 @OptIn(ExperimentalCoroutinesApi::class)
 @HiltViewModel
 class HistoryViewModel @Inject constructor(
     private val repository: AttendanceRepository
 ) : ViewModel() {
     
-    private val _selectedClassId = MutableStateFlow<Long?>(null)
+    private val query = MutableStateFlow(HistoryQuery())
     
-    val uiState: StateFlow<HistoryUiState> = combine(
-        repository.getAllClasses(),
-        _selectedClassId.flatMapLatest { classId ->
-            if (classId != null) {
-                repository.getSessionsByClass(classId)
-            } else {
-                repository.getAllSessions()
+    // Today starts expanded, other days collapsed
+    private val expandedDays = MutableStateFlow(setOf(localDay(System.currentTimeMillis(), TimeZone.getDefault())))
+    
+    private var pageJob: Job? = null
+    
+    // Room re-runs the window query on every change, over at most MAX_PAGES pages of rows
+    private val window: Flow<List<SessionWithClass>> = query.flatMapLatest { q ->
+        val endDate = q.endDate
+        if (endDate == null) {
+            flow<List<SessionWithClass>> {
+                val page = repository.getSessionPage(q.classId, q.from, q.startDate, q.startId, PAGE_SIZE)
+                query.compareAndSet(q, q.extendedBy(page))
             }
-        },
-        _selectedClassId
-    ) { classes, sessions, selectedId ->
-        val classMap = classes.associateBy { it.id }
-        val sessionsWithClass = sessions.map { session ->
-            SessionWithClass(
-                session = session,
-                classEntity = classMap[session.classId]
-            )
+        } else {
+            repository.getSessionWindow(q.classId, q.startDate, q.startId, endDate, q.endId)
         }
+    }
+    
+    // Headers and rows are flattened off the main thread; toggling a day only rebuilds this list
+    private val items: Flow<List<HistoryListItem>> = combine(window, expandedDays) { loaded, expanded ->
+        buildItems(loaded, expanded)
+    }.flowOn(Dispatchers.Default)
+    
+    val uiState: StateFlow<HistoryUiState> = combine(
+        repository.getAllClasses(),
+        items,
+        query
+    ) { classes, items, q ->
         HistoryUiState(
-            sessions = sessionsWithClass,
+            items = items,
             classes = classes,
-            selectedClassId = selectedId,
+            selectedClassId = q.classId,
+            range = q.range,
+            rangeStart = q.from,
+            rangeEnd = q.to,
+            hasNewer = q.hasNewer,
+            hasMore = q.hasMore,
             isLoading = false,
-            isEmpty = sessionsWithClass.isEmpty()
+            isEmpty = items.isEmpty()
         )
     }.stateIn(
         scope = viewModelScope,
@@ -64,7 +109,78 @@ class HistoryViewModel @Inject constructor(
     )
     
     fun filterByClass(classId: Long?) {
-        _selectedClassId.value = classId
+        val q = query.value
+        if (q.classId == classId) return
+        query.value = HistoryQuery(classId = classId, range = q.range, from = q.from, to = q.to)
+    }
+    
+    fun setRange(range: HistoryRange) {
+        if (range == HistoryRange.CUSTOM) return
+        val q = query.value
+        if (q.range == range) return
+        val start = startOfDay(System.currentTimeMillis())
+        val (from, to) = when (range) {
+            HistoryRange.THIS_WEEK -> {
+                start.set(Calendar.DAY_OF_WEEK, start.firstDayOfWeek)
+                start.timeInMillis to start.apply { add(Calendar.WEEK_OF_YEAR, 1) }.timeInMillis - 1
+            }
+            HistoryRange.THIS_MONTH -> {
+                start.set(Calendar.DAY_OF_MONTH, 1)
+                start.timeInMillis to start.apply { add(Calendar.MONTH, 1) }.timeInMillis - 1
+            }
+            else -> 0L to Long.MAX_VALUE
+        }
+        query.value = HistoryQuery(classId = q.classId, range = range, from = from, to = to)
+    }
+    
+    /**
+     * Limits History to the days picked in a date range picker, which reports each day
+     * as UTC midnight. Both days are inclusive, in the device time zone.
+     */
+    fun setCustomRange(startUtcMillis: Long, endUtcMillis: Long) {
+        val from = localDayFromUtc(startUtcMillis).timeInMillis
+        val to = localDayFromUtc(endUtcMillis).apply { add(Calendar.DAY_OF_MONTH, 1) }.timeInMillis - 1
+        val q = query.value
+        if (q.range == HistoryRange.CUSTOM && q.from == from && q.to == to) return
+        query.value = HistoryQuery(classId = q.classId, range = HistoryRange.CUSTOM, from = from, to = to)
+    }
+    
+    /**
+     * Reads the next page past the end of the loaded window, if there is one. A window already
+     * at MAX_PAGES lets go of its newest page, which [loadNewer] reads back on the way up.
+     */
+    fun loadMore() {
+        val q = query.value
+        val endDate = q.endDate ?: return
+        if (!q.hasMore || pageJob?.isActive == true) return
+        pageJob = viewModelScope.launch {
+            val page = repository.getSessionPage(q.classId, q.from, endDate, q.endId, PAGE_SIZE)
+            var next = q.extendedBy(page)
+            if (next.pages > MAX_PAGES) next = next.withoutNewestPage()
+            query.compareAndSet(q, next)
+        }
+    }
+    
+    /** Reads back the page above the start of the window, dropping the oldest page when full. */
+    fun loadNewer() {
+        val q = query.value
+        if (q.endDate == null || !q.hasNewer || pageJob?.isActive == true) return
+        pageJob = viewModelScope.launch {
+            // The start key itself was the last row let go, so it heads the page read back
+            val above = repository.getNewerSessionPage(q.classId, q.to, q.startDate, q.startId, PAGE_SIZE + 1)
+            var next = if (above.size <= PAGE_SIZE) {
+                q.copy(startDate = q.to, startId = Long.MAX_VALUE, pages = q.pages + 1, hasNewer = false)
+            } else {
+                val key = above[PAGE_SIZE]
+                q.copy(startDate = key.date, startId = key.id, pages = q.pages + 1)
+            }
+            if (next.pages > MAX_PAGES) next = next.withoutOldestPage()
+            query.compareAndSet(q, next)
+        }
+    }
+    
+    fun toggleDay(epochDay: Long) {
+        expandedDays.update { days -> if (epochDay in days) days - epochDay else days + epochDay }
     }
     
     fun deleteSession(session: AttendanceSessionEntity) {
@@ -72,4 +188,84 @@ class HistoryViewModel @Inject constructor(
             repository.deleteSession(session)
         }
     }
+    
+    // A short page means the range is exhausted, so the window opens down to its start
+    private fun HistoryQuery.extendedBy(page: List<SessionKey>): HistoryQuery {
+        val last = page.lastOrNull()
+        return if (page.size < PAGE_SIZE || last == null) {
+            copy(endDate = from, endId = 0L, pages = pages + 1, hasMore = false)
+        } else {
+            copy(endDate = last.date, endId = last.id, pages = pages + 1, hasMore = true)
+        }
+    }
+    
+    private suspend fun HistoryQuery.withoutNewestPage(): HistoryQuery {
+        val dropped = repository.getSessionPage(classId, from, startDate, startId, PAGE_SIZE).lastOrNull() ?: return this
+        return copy(startDate = dropped.date, startId = dropped.id, pages = pages - 1, hasNewer = true)
+    }
+    
+    private suspend fun HistoryQuery.withoutOldestPage(): HistoryQuery {
+        val kept = repository.getSessionPage(classId, from, startDate, startId, MAX_PAGES * PAGE_SIZE)
+        val last = kept.lastOrNull()
+        if (kept.size < MAX_PAGES * PAGE_SIZE || last == null) return copy(pages = MAX_PAGES)
+        return copy(endDate = last.date, endId = last.id, pages = MAX_PAGES, hasMore = true)
+    }
+    
+    /**
+     * Flattens a window into headers and the sessions of expanded days. Sessions arrive newest
+     * first, so each local day is one contiguous run; its header counts the run. Each session's
+     * day uses the zone offset at its own date, so days either side of a DST change line up.
+     */
+    private fun buildItems(sessions: List<SessionWithClass>, expanded: Set<Long>): List<HistoryListItem> {
+        val zone = TimeZone.getDefault()
+        val days = LongArray(sessions.size) { localDay(sessions[it].session.date, zone) }
+        val today = localDay(System.currentTimeMillis(), zone)
+        val dateFormat = SimpleDateFormat("dd MMM yyyy", Locale.getDefault())
+        val items = ArrayList<HistoryListItem>(sessions.size + 16)
+        var start = 0
+        while (start < sessions.size) {
+            val day = days[start]
+            var end = start + 1
+            while (end < sessions.size && days[end] == day) end++
+            val isExpanded = day in expanded
+            val isToday = day == today
+            items.add(
+                HistoryListItem.DateHeader(
+                    epochDay = day,
+                    date = if (isToday) "Today" else dateFormat.format(Date(sessions[start].session.date)),
+                    isToday = isToday,
+                    sessionCount = end - start,
+                    isExpanded = isExpanded
+                )
+            )
+            if (isExpanded) {
+                for (i in start until end) items.add(HistoryListItem.Session(sessions[i], day))
+            }
+            start = end
+        }
+        return items
+    }
+    
+    private fun localDay(millis: Long, zone: TimeZone): Long = (millis + zone.getOffset(millis)) / DAY_MILLIS
+    
+    private fun startOfDay(millis: Long): Calendar = Calendar.getInstance().apply {
+        timeInMillis = millis
+        set(Calendar.HOUR_OF_DAY, 0)
+        set(Calendar.MINUTE, 0)
+        set(Calendar.SECOND, 0)
+        set(Calendar.MILLISECOND, 0)
+    }
+    
+    private fun localDayFromUtc(utcMillis: Long): Calendar {
+        val utc = Calendar.getInstance(TimeZone.getTimeZone("UTC")).apply { timeInMillis = utcMillis }
+        return startOfDay(System.currentTimeMillis()).apply {
+            set(utc.get(Calendar.YEAR), utc.get(Calendar.MONTH), utc.get(Calendar.DAY_OF_MONTH))
+        }
+    }
+    
+    companion object {
+        private const val PAGE_SIZE = 50
+        private const val MAX_PAGES = 6
+        private const val DAY_MILLIS = 86_400_000L
+    }
 }
@@ -7,17 +7,19 @@ import android.view.View
 import android.view.animation.AccelerateDecelerateInterpolator
 import androidx.activity.viewModels
 import androidx.appcompat.app.AppCompatActivity
+import androidx.core.view.doOnPreDraw
 import androidx.lifecycle.Lifecycle
 import androidx.lifecycle.lifecycleScope
 import androidx.lifecycle.repeatOnLifecycle
+import androidx.recyclerview.widget.RecyclerView
 import com.simpleattendance.R
 import com.simpleattendance.databinding.ActivityMainBinding
 import com.simpleattendance.ui.createclass.CreateClassActivity
 import com.simpleattendance.util.HapticUtils
+import com.simpleattendance.util.StartupTrace
 import dagger.hilt.android.AndroidEntryPoint
 import kotlinx.coroutines.launch
 import javax.inject.Inject
-import kotlinx.coroutines.flow.first
 
 import com.simpleattendance.ui.classlist.ClassListViewModel
 
@@ -30,27 +32,17 @@ class MainActivity : AppCompatActivity() {
     @Inject
     lateinit var hapticUtils: HapticUtils
     
-    @Inject
-    lateinit var settingsRepository: com.simpleattendance.data.repository.SettingsRepository
-    
     private var currentTitle = ""
     
+    private var reportedFullyDrawn = false
+    
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
         
-        // Apply saved theme preference on startup as early as possible
-        lifecycleScope.launch {
-            val theme = settingsRepository.settings.first().theme
-            val mode = when (theme) {
-                "light" -> androidx.appcompat.app.AppCompatDelegate.MODE_NIGHT_NO
-                "dark" -> androidx.appcompat.app.AppCompatDelegate.MODE_NIGHT_YES
-                else -> androidx.appcompat.app.AppCompatDelegate.MODE_NIGHT_FOLLOW_SYSTEM
-            }
-            androidx.appcompat.app.AppCompatDelegate.setDefaultNightMode(mode)
-        }
-        
+        // Saved theme is applied by RollCallApplication before the first activity is created
         binding = ActivityMainBinding.inflate(layoutInflater)
         setContentView(binding.root)
+        binding.root.doOnPreDraw { StartupTrace.firstFrameDrawn() }
         
         setupViewPager()
         setupBottomNavigation()
@@ -65,6 +57,11 @@ class MainActivity : AppCompatActivity() {
         lifecycleScope.launch {
             repeatOnLifecycle(Lifecycle.State.STARTED) {
                 viewModel.uiState.collect { state ->
+                    if (!state.isLoading && !reportedFullyDrawn) {
+                        reportedFullyDrawn = true
+                        reportFullyDrawn()
+                    }
+                    
                     // Pulse FAB when class list is empty and we are on first page
                     if (state.isEmpty && !state.isLoading && binding.viewPager.currentItem == 0) {
                         com.simpleattendance.util.AnimationUtils.startPulsing(binding.fab)
@@ -80,6 +77,9 @@ class MainActivity : AppCompatActivity() {
         val pagerAdapter = MainPagerAdapter(this)
         binding.viewPager.adapter = pagerAdapter
         
+        // Tabs are created when first scrolled to, not prefetched alongside the class list
+        (binding.viewPager.getChildAt(0) as? RecyclerView)?.layoutManager?.isItemPrefetchEnabled = false
+        
         // Sync ViewPager with BottomNavigation
         binding.viewPager.registerOnPageChangeCallback(object : androidx.viewpager2.widget.ViewPager2.OnPageChangeCallback() {
             override fun onPageSelected(position: Int) {
@@ -1,5 +1,7 @@
 package com.simpleattendance.ui.report
 
+import android.animation.Animator
+import android.animation.AnimatorListenerAdapter
 import android.animation.ValueAnimator
 import android.content.Context
 import android.graphics.Canvas
@@ -10,9 +12,13 @@ import android.util.AttributeSet
 import android.view.View
 import android.view.animation.AccelerateDecelerateInterpolator
 import androidx.core.content.ContextCompat
-import androidx.core.content.res.ResourcesCompat
 import com.simpleattendance.R
+import com.simpleattendance.util.TypefaceProvider
 
+/**
+ * Percentage ring with a centered label. Colors, labels and the animator are created
+ * once, so drawing and animating allocate nothing per frame.
+ */
 class CircularGaugeView @JvmOverloads constructor(
     context: Context,
     attrs: AttributeSet? = null,
@@ -21,10 +27,16 @@ class CircularGaugeView @JvmOverloads constructor(
 
     private var progress: Float = 0f
     private var animatedProgress: Float = 0f
+    private var animationStart: Float = 0f
     
     private val strokeWidthSize = 24f
     private val padding = 30f
     
+    // Tier colors, resolved once instead of on every frame
+    private val highColor = ContextCompat.getColor(context, R.color.success_green)
+    private val mediumColor = ContextCompat.getColor(context, R.color.warning_yellow)
+    private val lowColor = ContextCompat.getColor(context, R.color.error_red)
+    
     private val trackPaint = Paint(Paint.ANTI_ALIAS_FLAG).apply {
         style = Paint.Style.STROKE
         strokeWidth = strokeWidthSize
@@ -43,34 +55,86 @@ class CircularGaugeView @JvmOverloads constructor(
     
     private val rectF = RectF()
     
+    // Registered only while attached, so a pending font request never holds a detached view
+    private val onFontReady: (Typeface) -> Unit = { typeface ->
+        if (textPaint.typeface != typeface) {
+            textPaint.typeface = typeface
+            invalidate()
+        }
+    }
+    
+    // One animator for the life of the view; a new target restarts it from the current value
+    private val animator = ValueAnimator.ofFloat(0f, 1f).apply {
+        duration = 1200
+        interpolator = AccelerateDecelerateInterpolator()
+        addUpdateListener { animation ->
+            animatedProgress = animationStart + (progress - animationStart) * animation.animatedFraction
+            invalidate()
+        }
+        addListener(object : AnimatorListenerAdapter() {
+            override fun onAnimationStart(animation: Animator) {
+                updateLayerType()
+            }
+            
+            override fun onAnimationEnd(animation: Animator) {
+                updateLayerType()
+            }
+        })
+    }
+    
+    /**
+     * Keeps the gauge in a hardware layer while it is not animating, so a static gauge in a
+     * scrolling list is composited rather than redrawn. The layer is dropped during an
+     * animation, when the content changes every frame anyway.
+     */
+    var useHardwareLayer: Boolean = false
+        set(value) {
+            field = value
+            updateLayerType()
+        }
+    
     init {
         trackPaint.color = ContextCompat.getColor(context, R.color.background_tertiary)
         
-        // Load custom Outfit font for percentage text if available, fallback to bold system
-        val customFont = try {
-            ResourcesCompat.getFont(context, R.font.outfit)
-        } catch (e: Exception) {
-            Typeface.create(Typeface.DEFAULT, Typeface.BOLD)
-        }
-        textPaint.typeface = customFont
+        // Draw with bold system text until the Outfit font has been resolved
+        textPaint.typeface = TypefaceProvider.peek(R.font.outfit) ?: Typeface.create(Typeface.DEFAULT, Typeface.BOLD)
         textPaint.color = ContextCompat.getColor(context, R.color.text_primary)
     }
     
-    fun setProgress(value: Float) {
-        progress = value.coerceIn(0f, 100f)
-        animateProgress()
+    /**
+     * Moves the gauge to [value] percent. When [animate] is true it sweeps from where it is
+     * now, including mid-animation; otherwise it jumps, as list rows should.
+     */
+    fun setProgress(value: Float, animate: Boolean = true) {
+        val target = value.coerceIn(0f, 100f)
+        if (target == progress && (animator.isRunning || animatedProgress == target)) return
+        progress = target
+        if (animate) {
+            animationStart = animatedProgress
+            animator.cancel()
+            animator.start()
+        } else {
+            animator.cancel()
+            animatedProgress = target
+            invalidate()
+        }
     }
     
-    private fun animateProgress() {
-        val animator = ValueAnimator.ofFloat(0f, progress).apply {
-            duration = 1200
-            interpolator = AccelerateDecelerateInterpolator()
-            addUpdateListener { animation ->
-                animatedProgress = animation.animatedValue as Float
-                invalidate()
-            }
-        }
-        animator.start()
+    private fun updateLayerType() {
+        val wanted = if (useHardwareLayer && !animator.isRunning) LAYER_TYPE_HARDWARE else LAYER_TYPE_NONE
+        if (layerType != wanted) setLayerType(wanted, null)
+    }
+    
+    override fun onAttachedToWindow() {
+        super.onAttachedToWindow()
+        TypefaceProvider.get(context, R.font.outfit, onFontReady)
+    }
+    
+    override fun onDetachedFromWindow() {
+        TypefaceProvider.cancel(R.font.outfit, onFontReady)
+        // Settle on the target rather than leaving the animator running off screen
+        if (animator.isRunning) animator.end()
+        super.onDetachedFromWindow()
     }
     
     override fun onSizeChanged(w: Int, h: Int, oldw: Int, oldh: Int) {
@@ -93,9 +157,9 @@ class CircularGaugeView @JvmOverloads constructor(
         
         // Dynamic arc color based on progress tier
         progressPaint.color = when {
-            animatedProgress >= 75f -> ContextCompat.getColor(context, R.color.success_green)
-            animatedProgress >= 50f -> ContextCompat.getColor(context, R.color.warning_yellow)
-            else -> ContextCompat.getColor(context, R.color.error_red)
+            animatedProgress >= 75f -> highColor
+            animatedProgress >= 50f -> mediumColor
+            else -> lowColor
         }
         
         // Draw progress sweep arc (starts from top -90deg)
@@ -103,7 +167,13 @@ class CircularGaugeView @JvmOverloads constructor(
         canvas.drawArc(rectF, -90f, sweepAngle, false, progressPaint)
         
         // Draw centered percentage text
+        val label = PERCENT_LABELS[(animatedProgress + 0.5f).toInt().coerceIn(0, 100)]
         val textY = (height / 2) - ((textPaint.descent() + textPaint.ascent()) / 2)
-        canvas.drawText(String.format("%.0f%%", animatedProgress), (width / 2).toFloat(), textY, textPaint)
+        canvas.drawText(label, (width / 2).toFloat(), textY, textPaint)
+    }
+    
+    companion object {
+        // "0%" to "100%", built once per process
+        private val PERCENT_LABELS = Array(101) { "$it%" }
     }
 }
@@ -3,8 +3,11 @@ package com.simpleattendance.ui.report
 import androidx.lifecycle.SavedStateHandle
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
+import com.simpleattendance.data.local.AttendanceStatus
 import com.simpleattendance.data.local.entity.StudentEntity
+import com.simpleattendance.data.local.model.SessionReport
 import com.simpleattendance.data.repository.AttendanceRepository
+import com.simpleattendance.data.repository.SessionResultCache
 import com.simpleattendance.data.repository.SettingsRepository
 import dagger.hilt.android.lifecycle.HiltViewModel
 import kotlinx.coroutines.flow.*
@@ -30,10 +33,12 @@ data class ReportUiState(
 class ReportViewModel @Inject constructor(
     private val repository: AttendanceRepository,
     private val settingsRepository: SettingsRepository,
+    private val sessionResultCache: SessionResultCache,
     savedStateHandle: SavedStateHandle
 ) : ViewModel() {
     
     private val sessionId: Long = savedStateHandle.get<Long>("sessionId") ?: 0L
+    private val fromHistory: Boolean = savedStateHandle.get<Boolean>("fromHistory") ?: false
     
     private val _uiState = MutableStateFlow(ReportUiState())
     val uiState: StateFlow<ReportUiState> = _uiState.asStateFlow()
@@ -44,49 +49,57 @@ class ReportViewModel @Inject constructor(
     
     private fun loadReport() {
         viewModelScope.launch {
-            val session = repository.getSessionById(sessionId) ?: return@launch
-            val classEntity = repository.getClassById(session.classId) ?: return@launch
-            
-            val presentRecords = repository.getPresentRecords(sessionId)
-            val absentRecords = repository.getAbsentRecords(sessionId)
-            
-            val allStudents = repository.getStudentsByClassSync(session.classId)
-            val studentMap = allStudents.associateBy { it.id }
-            
-            val presentStudents = presentRecords.mapNotNull { studentMap[it.studentId] }
-            val absentStudents = absentRecords.mapNotNull { studentMap[it.studentId] }
-            
-            val dateFormat = SimpleDateFormat("dd MMM yyyy, hh:mm a", Locale.getDefault())
-            val formattedDate = dateFormat.format(Date(session.date))
-            
-            // Get settings for report generation
-            val settings = settingsRepository.settings.first()
-            
-            val reportText = buildReportText(
-                className = classEntity.fullDisplayName,
-                date = formattedDate,
-                allStudents = allStudents,
-                presentStudents = presentStudents,
-                absentStudents = absentStudents,
-                total = session.totalCount,
-                percentage = session.percentage,
-                template = settings.reportTemplate,
-                numberingMode = settings.numberingMode
-            )
-            
-            _uiState.value = ReportUiState(
-                classDisplayName = classEntity.fullDisplayName,
-                formattedDate = formattedDate,
-                presentCount = session.presentCount,
-                absentCount = session.absentCount,
-                totalCount = session.totalCount,
-                percentage = session.percentage,
-                presentStudents = presentStudents,
-                absentStudents = absentStudents,
-                reportText = reportText,
-                isLoading = false
-            )
+            // Straight after saving, the attendance screen has already handed over the result
+            val cached = if (fromHistory) null else sessionResultCache.take(sessionId)
+            val report = cached ?: repository.getSessionReport(sessionId) ?: return@launch
+            showReport(report)
+        }
+    }
+    
+    private suspend fun showReport(report: SessionReport) {
+        val session = report.session
+        val classEntity = report.classEntity
+        val allStudents = report.roster
+        
+        val presentStudents = mutableListOf<StudentEntity>()
+        val absentStudents = mutableListOf<StudentEntity>()
+        allStudents.forEachIndexed { index, student ->
+            when (report.statuses[index]) {
+                AttendanceStatus.PRESENT -> presentStudents.add(student)
+                AttendanceStatus.ABSENT -> absentStudents.add(student)
+            }
         }
+        
+        val dateFormat = SimpleDateFormat("dd MMM yyyy, hh:mm a", Locale.getDefault())
+        val formattedDate = dateFormat.format(Date(session.date))
+        
+        // Get settings for report generation
+        val settings = settingsRepository.current()
+        
+        val reportText = buildReportText(
+            className = classEntity.fullDisplayName,
+            date = formattedDate,
+            allStudents = allStudents,
+            presentStudents = presentStudents,
+            absentStudents = absentStudents,
+            total = session.totalCount,
+            percentage = session.percentage,
+            template = settings.reportTemplate,
+            numberingMode = settings.numberingMode
+        )
+        
+        _uiState.value = ReportUiState(
+            classDisplayName = classEntity.fullDisplayName,
+            formattedDate = formattedDate,
+            presentCount = session.presentCount,
+            absentCount = session.absentCount,
+            totalCount = session.totalCount,
+            percentage = session.percentage,
+            presentStudents = presentStudents,
+            absentStudents = absentStudents,
+            reportText = reportText,
+            isLoading = false
+        )
     }
     
     private fun buildReportText(
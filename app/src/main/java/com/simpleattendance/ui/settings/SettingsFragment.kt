@@ -125,16 +125,26 @@ class SettingsFragment : Fragment() {
                 val mode = when (checkedId) {
                     R.id.modeButtons -> "buttons"
                     R.id.modeSwipe -> "swipe"
+                    R.id.modeAbsentees -> "absentees"
                     else -> "both"
                 }
                 viewModel.setAttendanceMode(mode)
             }
         }
+        
+        // Rapid Mode Switch
+        binding.rapidModeSwitch.setOnCheckedChangeListener { _, isChecked ->
+            if (!isInitializing) {
+                hapticUtils.lightTap()
+                viewModel.setRapidMode(isChecked)
+            }
+        }
     }
     
     private fun observeState() {
         viewLifecycleOwner.lifecycleScope.launch {
-            repeatOnLifecycle(Lifecycle.State.STARTED) {
+            // Only subscribe while this tab is the current page
+            repeatOnLifecycle(Lifecycle.State.RESUMED) {
                 viewModel.settings.collect { settings ->
                     isInitializing = true
 
@@ -166,12 +176,18 @@ class SettingsFragment : Fragment() {
                     val modeId = when (settings.attendanceMode) {
                         "buttons" -> R.id.modeButtons
                         "swipe" -> R.id.modeSwipe
+                        "absentees" -> R.id.modeAbsentees
                         else -> R.id.modeBoth
                     }
                     if (binding.attendanceModeRadioGroup.checkedRadioButtonId != modeId) {
                         binding.attendanceModeRadioGroup.check(modeId)
                     }
                     
+                    // Rapid Mode
+                    if (binding.rapidModeSwitch.isChecked != settings.rapidMode) {
+                        binding.rapidModeSwitch.isChecked = settings.rapidMode
+                    }
+                    
                     isInitializing = false
                 }
             }
@@ -15,12 +15,7 @@ class SettingsViewModel @Inject constructor(
     private val settingsRepository: SettingsRepository
 ) : ViewModel() {
     
-    val settings: StateFlow<UserSettings> = settingsRepository.settings
-        .stateIn(
-            scope = viewModelScope,
-            started = SharingStarted.WhileSubscribed(5000),
-            initialValue = UserSettings()
-        )
+    val settings: StateFlow<UserSettings> = settingsRepository.snapshot
     
     fun setTheme(theme: String) {
         viewModelScope.launch {
@@ -53,12 +48,13 @@ class SettingsViewModel @Inject constructor(
         }
     }
     
-    private fun applyTheme(theme: String) {
-        val mode = when (theme) {
-            "light" -> AppCompatDelegate.MODE_NIGHT_NO
-            "dark" -> AppCompatDelegate.MODE_NIGHT_YES
-            else -> AppCompatDelegate.MODE_NIGHT_FOLLOW_SYSTEM
+    fun setRapidMode(enabled: Boolean) {
+        viewModelScope.launch {
+            settingsRepository.setRapidMode(enabled)
         }
-        AppCompatDelegate.setDefaultNightMode(mode)
+    }
+    
+    private fun applyTheme(theme: String) {
+        AppCompatDelegate.setDefaultNightMode(SettingsRepository.nightModeFor(theme))
     }
 }
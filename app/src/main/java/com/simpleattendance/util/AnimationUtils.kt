@@ -3,6 +3,15 @@ package com.simpleattendance.util
 import android.content.Context
 import android.view.View
 import android.view.animation.AnimationUtils
+import androidx.annotation.RawRes
+import androidx.lifecycle.DefaultLifecycleObserver
+import androidx.lifecycle.Lifecycle
+import androidx.lifecycle.LifecycleOwner
+import com.airbnb.lottie.LottieAnimationView
+import com.airbnb.lottie.LottieComposition
+import com.airbnb.lottie.LottieCompositionFactory
+import com.airbnb.lottie.LottieListener
+import com.airbnb.lottie.LottieTask
 import com.simpleattendance.R
 
 object AnimationUtils {
@@ -154,4 +163,70 @@ object AnimationUtils {
             view.animate().scaleX(1f).scaleY(1f).setDuration(200).start()
         }
     }
+    
+    // Composition load still waiting to deliver to a view, kept so its listener can be removed
+    private class PendingLoad(
+        val task: LottieTask<LottieComposition>,
+        val listener: LottieListener<LottieComposition>
+    )
+    
+    /**
+     * Plays a Lottie animation from [rawRes], parsing it in the background on first use.
+     * Compositions are cached per resource, so later calls start immediately.
+     */
+    fun playLottie(view: LottieAnimationView, @RawRes rawRes: Int) {
+        if (view.composition != null) {
+            if (!view.isAnimating) view.resumeAnimation()
+            return
+        }
+        if (view.getTag(R.id.lottie_pending_load) != null) return
+        val listener = LottieListener<LottieComposition> { composition ->
+            view.setTag(R.id.lottie_pending_load, null)
+            if (view.composition == null) view.setComposition(composition)
+            if (!view.isAnimating) view.playAnimation()
+        }
+        val task = LottieCompositionFactory.fromRawRes(view.context, rawRes)
+        view.setTag(R.id.lottie_pending_load, PendingLoad(task, listener))
+        task.addListener(listener)
+    }
+    
+    /** Pauses [view] and drops any load still pending for it, so the task no longer holds the view. */
+    fun pauseLottie(view: LottieAnimationView) {
+        (view.getTag(R.id.lottie_pending_load) as? PendingLoad)?.let { it.task.removeListener(it.listener) }
+        view.setTag(R.id.lottie_pending_load, null)
+        view.pauseAnimation()
+    }
+    
+    /**
+     * Runs a Lottie animation only while [owner] is resumed and [view] is shown, pausing it
+     * otherwise. Lifecycle changes are followed on their own; call [update] after changing
+     * the visibility of the view or a parent. Pass a fragment's view lifecycle owner.
+     */
+    class LottieWhileShown(
+        private val owner: LifecycleOwner,
+        private val view: LottieAnimationView,
+        @RawRes private val rawRes: Int
+    ) : DefaultLifecycleObserver {
+        
+        init {
+            owner.lifecycle.addObserver(this)
+        }
+        
+        fun update() {
+            if (owner.lifecycle.currentState.isAtLeast(Lifecycle.State.RESUMED) && view.isShown) {
+                playLottie(view, rawRes)
+            } else {
+                pauseLottie(view)
+            }
+        }
+        
+        override fun onResume(owner: LifecycleOwner) = update()
+        
+        override fun onPause(owner: LifecycleOwner) = update()
+        
+        override fun onDestroy(owner: LifecycleOwner) {
+            pauseLottie(view)
+            owner.lifecycle.removeObserver(this)
+        }
+    }
 }
@@ -2,63 +2,233 @@ package com.simpleattendance.util
 
 import android.content.ContentResolver
 import android.net.Uri
-import java.io.BufferedReader
+import android.provider.OpenableColumns
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOn
+import java.io.BufferedInputStream
+import java.io.FilterInputStream
+import java.io.InputStream
 import java.io.InputStreamReader
+import java.nio.charset.Charset
 
 data class StudentCsvRow(
     val rollNo: String,
     val name: String
 )
 
+sealed class CsvImportEvent {
+    /** A batch of parsed rows, in file order. */
+    data class Rows(val rows: List<StudentCsvRow>) : CsvImportEvent()
+
+    /** [totalBytes] is -1 when the provider does not report a size. */
+    data class Progress(val bytesRead: Long, val totalBytes: Long) : CsvImportEvent()
+
+    data class RowError(val lineNumber: Int, val message: String) : CsvImportEvent()
+
+    data class Finished(val rowCount: Int, val errorCount: Int) : CsvImportEvent()
+}
+
 object CsvParser {
-    
-    fun parseStudentsCsv(contentResolver: ContentResolver, uri: Uri): Result<List<StudentCsvRow>> {
-        return try {
-            val students = mutableListOf<StudentCsvRow>()
-            
-            contentResolver.openInputStream(uri)?.use { inputStream ->
-                BufferedReader(InputStreamReader(inputStream)).use { reader ->
-                    var lineNumber = 0
-                    reader.forEachLine { line ->
-                        lineNumber++
-                        if (line.isBlank()) return@forEachLine
-                        
-                        val parts = line.split(",").map { it.trim() }
-                        
-                        when {
-                            // Skip header row
-                            lineNumber == 1 && isHeaderRow(parts) -> return@forEachLine
-                            
-                            // Two columns: RollNo, Name
-                            parts.size >= 2 -> {
-                                students.add(StudentCsvRow(
-                                    rollNo = parts[0],
-                                    name = parts[1]
-                                ))
-                            }
-                            
-                            // Single column: Name only
-                            parts.size == 1 && parts[0].isNotBlank() -> {
-                                students.add(StudentCsvRow(
-                                    rollNo = "",
-                                    name = parts[0]
-                                ))
-                            }
+
+    private const val BATCH_SIZE = 256
+    private const val SNIFF_SIZE = 8192
+
+    private val WINDOWS_1252: Charset = Charset.forName("windows-1252")
+
+    /**
+     * Streams student rows from a CSV file on the IO dispatcher.
+     * Rows are emitted in batches, each followed by a progress update. Bad rows are
+     * reported with their line number and skipped; an unreadable file fails the flow.
+     */
+    fun streamStudentsCsv(contentResolver: ContentResolver, uri: Uri): Flow<CsvImportEvent> = flow {
+        val totalBytes = querySize(contentResolver, uri)
+        val input = contentResolver.openInputStream(uri)
+            ?: throw IllegalStateException("Unable to open file")
+
+        CountingInputStream(input).use { counting ->
+            val tokenizer = tokenizerFor(BufferedInputStream(counting, SNIFF_SIZE * 2))
+
+            val fields = ArrayList<String>(4)
+            var batch = ArrayList<StudentCsvRow>(BATCH_SIZE)
+            var rowCount = 0
+            var errorCount = 0
+            var isFirstRecord = true
+
+            while (true) {
+                val hasRecord = try {
+                    tokenizer.nextRecord(fields)
+                } catch (e: CsvParseException) {
+                    errorCount++
+                    emit(CsvImportEvent.RowError(e.lineNumber, e.message ?: "Malformed row"))
+                    false
+                }
+                if (!hasRecord) break
+
+                val firstRecord = isFirstRecord
+                isFirstRecord = false
+                if (fields.all { it.isEmpty() }) continue
+
+                when {
+                    // Skip header row
+                    firstRecord && isHeaderRow(fields) -> continue
+
+                    // Two or more columns: RollNo, Name
+                    fields.size >= 2 -> {
+                        if (fields[1].isEmpty()) {
+                            errorCount++
+                            emit(CsvImportEvent.RowError(tokenizer.recordLineNumber, "Missing student name"))
+                            continue
                         }
+                        batch.add(StudentCsvRow(rollNo = fields[0], name = fields[1]))
                     }
+
+                    // Single column: Name only
+                    else -> batch.add(StudentCsvRow(rollNo = "", name = fields[0]))
+                }
+
+                if (batch.size == BATCH_SIZE) {
+                    rowCount += batch.size
+                    emit(CsvImportEvent.Rows(batch))
+                    emit(CsvImportEvent.Progress(counting.count, totalBytes))
+                    batch = ArrayList(BATCH_SIZE)
                 }
             }
-            
-            if (students.isEmpty()) {
-                Result.failure(Exception("No valid student data found in CSV"))
-            } else {
-                Result.success(students)
+
+            if (batch.isNotEmpty()) {
+                rowCount += batch.size
+                emit(CsvImportEvent.Rows(batch))
             }
+            emit(CsvImportEvent.Progress(counting.count, totalBytes))
+            emit(CsvImportEvent.Finished(rowCount, errorCount))
+        }
+    }.flowOn(Dispatchers.IO)
+
+    private fun querySize(contentResolver: ContentResolver, uri: Uri): Long {
+        return try {
+            contentResolver.query(uri, arrayOf(OpenableColumns.SIZE), null, null, null)?.use { cursor ->
+                if (cursor.moveToFirst() && !cursor.isNull(0)) cursor.getLong(0) else -1L
+            } ?: -1L
         } catch (e: Exception) {
-            Result.failure(e)
+            -1L
+        }
+    }
+
+    /**
+     * Sniffs the head of [input] for its charset and delimiter, consuming any byte-order
+     * mark, and returns a tokenizer over the rest. [input] must support mark/reset.
+     */
+    internal fun tokenizerFor(input: BufferedInputStream): CsvTokenizer {
+        val charset = detectCharset(input)
+        return CsvTokenizer(InputStreamReader(input, charset), detectDelimiter(input, charset))
+    }
+
+    /**
+     * Picks the charset from a byte-order mark if present and consumes the mark.
+     * Otherwise samples the head of the stream: zero-byte patterns mean UTF-16,
+     * valid UTF-8 means UTF-8, and anything else is treated as Windows-1252.
+     */
+    private fun detectCharset(input: BufferedInputStream): Charset {
+        input.mark(SNIFF_SIZE)
+        val sample = ByteArray(SNIFF_SIZE)
+        val length = readFully(input, sample)
+        input.reset()
+
+        fun b(i: Int) = sample[i].toInt() and 0xFF
+
+        if (length >= 3 && b(0) == 0xEF && b(1) == 0xBB && b(2) == 0xBF) {
+            input.skip(3)
+            return Charsets.UTF_8
         }
+        if (length >= 2 && b(0) == 0xFF && b(1) == 0xFE) {
+            input.skip(2)
+            return Charsets.UTF_16LE
+        }
+        if (length >= 2 && b(0) == 0xFE && b(1) == 0xFF) {
+            input.skip(2)
+            return Charsets.UTF_16BE
+        }
+
+        var evenZeros = 0
+        var oddZeros = 0
+        for (i in 0 until length) {
+            if (sample[i].toInt() == 0) {
+                if (i % 2 == 0) evenZeros++ else oddZeros++
+            }
+        }
+        val pairs = length / 2
+        if (pairs > 0) {
+            if (oddZeros * 3 > pairs && evenZeros * 10 < pairs) return Charsets.UTF_16LE
+            if (evenZeros * 3 > pairs && oddZeros * 10 < pairs) return Charsets.UTF_16BE
+        }
+
+        return if (isValidUtf8(sample, length)) Charsets.UTF_8 else WINDOWS_1252
+    }
+
+    /** Validates UTF-8, tolerating a multi-byte sequence cut off at the end of the sample. */
+    private fun isValidUtf8(bytes: ByteArray, length: Int): Boolean {
+        var i = 0
+        while (i < length) {
+            val lead = bytes[i].toInt() and 0xFF
+            val continuation = when {
+                lead < 0x80 -> 0
+                lead in 0xC2..0xDF -> 1
+                lead in 0xE0..0xEF -> 2
+                lead in 0xF0..0xF4 -> 3
+                else -> return false
+            }
+            for (j in 1..continuation) {
+                if (i + j >= length) return true
+                if ((bytes[i + j].toInt() and 0xC0) != 0x80) return false
+            }
+            i += continuation + 1
+        }
+        return true
+    }
+
+    /**
+     * Picks ',', ';' or tab by counting unquoted occurrences on the first line.
+     * Exam-cell exports from European-locale spreadsheets often use ';'.
+     */
+    private fun detectDelimiter(input: BufferedInputStream, charset: Charset): Char {
+        input.mark(SNIFF_SIZE)
+        val sample = ByteArray(SNIFF_SIZE)
+        val length = readFully(input, sample)
+        input.reset()
+
+        val text = String(sample, 0, length, charset)
+        var commas = 0
+        var semicolons = 0
+        var tabs = 0
+        var inQuotes = false
+        for (c in text) {
+            when {
+                c == '"' -> inQuotes = !inQuotes
+                inQuotes -> Unit
+                c == '\n' || c == '\r' -> break
+                c == ',' -> commas++
+                c == ';' -> semicolons++
+                c == '\t' -> tabs++
+            }
+        }
+        return when {
+            semicolons > commas && semicolons >= tabs -> ';'
+            tabs > commas && tabs > semicolons -> '\t'
+            else -> ','
+        }
+    }
+
+    private fun readFully(input: InputStream, target: ByteArray): Int {
+        var total = 0
+        while (total < target.size) {
+            val read = input.read(target, total, target.size - total)
+            if (read <= 0) break
+            total += read
+        }
+        return total
     }
-    
+
     private fun isHeaderRow(parts: List<String>): Boolean {
         val headerKeywords = listOf("roll", "name", "student", "sr", "no", "number", "id")
         return parts.any { part ->
@@ -67,4 +237,27 @@ object CsvParser {
             }
         }
     }
+
+    private class CountingInputStream(input: InputStream) : FilterInputStream(input) {
+        var count = 0L
+            private set
+
+        override fun read(): Int {
+            val b = super.read()
+            if (b >= 0) count++
+            return b
+        }
+
+        override fun read(b: ByteArray, off: Int, len: Int): Int {
+            val read = super.read(b, off, len)
+            if (read > 0) count += read
+            return read
+        }
+
+        override fun skip(n: Long): Long {
+            val skipped = super.skip(n)
+            count += skipped
+            return skipped
+        }
+    }
 }
@@ -0,0 +1,134 @@
+package com.simpleattendance.util
+
+import java.io.Reader
+
+class CsvParseException(val lineNumber: Int, message: String) : Exception("Line $lineNumber: $message")
+
+/**
+ * Streaming RFC 4180 tokenizer. Reads through a fixed char buffer and one reusable
+ * field builder, so the only per-record allocations are the field strings themselves.
+ *
+ * Handles quoted fields, doubled quotes, delimiters and line breaks inside quotes,
+ * and CRLF, LF or CR line endings. Unquoted fields are trimmed, and blanks after a
+ * closing quote are dropped.
+ */
+class CsvTokenizer(
+    private val reader: Reader,
+    private val delimiter: Char = ','
+) {
+    private val buffer = CharArray(BUFFER_SIZE)
+    private var bufferLength = 0
+    private var position = 0
+
+    private val field = StringBuilder(64)
+    private var line = 1
+
+    /** Line on which the most recently returned record started. */
+    var recordLineNumber: Int = 0
+        private set
+
+    /**
+     * Reads the next record into [fields], replacing its contents.
+     * Returns false once the input is exhausted.
+     *
+     * @throws CsvParseException if a quoted field is not closed before end of input
+     */
+    fun nextRecord(fields: MutableList<String>): Boolean {
+        fields.clear()
+        var c = read()
+        if (c == EOF) return false
+        recordLineNumber = line
+
+        while (true) {
+            field.setLength(0)
+            var quoted = false
+            var quotedLength = 0
+
+            // Skip leading blanks so `a, "b"` still sees the quote
+            while (c == ' '.code || (c == '\t'.code && delimiter != '\t')) c = read()
+
+            if (c == '"'.code) {
+                quoted = true
+                val startLine = line
+                while (true) {
+                    c = read()
+                    when (c) {
+                        EOF -> throw CsvParseException(startLine, "Unterminated quoted field")
+                        '"'.code -> {
+                            c = read()
+                            if (c == '"'.code) field.append('"') else break
+                        }
+                        '\r'.code -> {
+                            if (peek() == '\n'.code) read()
+                            field.append('\n')
+                            line++
+                        }
+                        '\n'.code -> {
+                            field.append('\n')
+                            line++
+                        }
+                        else -> field.append(c.toChar())
+                    }
+                }
+                quotedLength = field.length
+            }
+
+            // Unquoted content, or stray characters after a closing quote
+            while (c != EOF && c != delimiter.code && c != '\n'.code && c != '\r'.code) {
+                field.append(c.toChar())
+                c = read()
+            }
+            fields.add(if (quoted) trimmedAfter(quotedLength) else trimmedField())
+
+            when (c) {
+                delimiter.code -> c = read()
+                '\r'.code -> {
+                    if (peek() == '\n'.code) read()
+                    line++
+                    return true
+                }
+                '\n'.code -> {
+                    line++
+                    return true
+                }
+                else -> return true // EOF
+            }
+        }
+    }
+
+    private fun trimmedField(): String {
+        var start = 0
+        var end = field.length
+        while (start < end && field[start].isWhitespace()) start++
+        while (end > start && field[end - 1].isWhitespace()) end--
+        return field.substring(start, end)
+    }
+
+    // Keeps the quoted content as written and trims only what followed the closing quote
+    private fun trimmedAfter(start: Int): String {
+        var end = field.length
+        while (end > start && field[end - 1].isWhitespace()) end--
+        return field.substring(0, end)
+    }
+
+    private fun read(): Int {
+        if (position >= bufferLength && !fill()) return EOF
+        return buffer[position++].code
+    }
+
+    private fun peek(): Int {
+        if (position >= bufferLength && !fill()) return EOF
+        return buffer[position].code
+    }
+
+    private fun fill(): Boolean {
+        bufferLength = reader.read(buffer, 0, buffer.size)
+        position = 0
+        return bufferLength > 0
+    }
+
+    companion object {
+        private const val BUFFER_SIZE = 8192
+        private const val EOF = -1
+    }
+}
@@ -7,87 +7,120 @@ import android.os.Vibrator
 import android.os.VibratorManager
 import android.view.HapticFeedbackConstants
 import android.view.View
-import androidx.datastore.core.DataStore
-import androidx.datastore.preferences.core.Preferences
-import androidx.datastore.preferences.core.booleanPreferencesKey
+import com.simpleattendance.data.repository.SettingsRepository
+import com.simpleattendance.di.ApplicationScope
 import dagger.hilt.android.qualifiers.ApplicationContext
-import kotlinx.coroutines.flow.first
-import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.flow.map
 import javax.inject.Inject
 import javax.inject.Singleton
 
+/** Plays the effects behind each [HapticUtils] call. */
+interface HapticPlayer {
+    fun tick()
+    fun click()
+    fun heavyClick()
+    fun success()
+    fun error()
+}
+
+/**
+ * Haptic feedback for taps, swipes and results. The enabled setting is held in memory by
+ * [HapticsSetting], so a tap only reads a field before handing off to the [HapticPlayer].
+ */
 @Singleton
-class HapticUtils @Inject constructor(
-    @ApplicationContext private val context: Context,
-    private val dataStore: DataStore<Preferences>
+class HapticUtils(
+    private val setting: HapticsSetting,
+    private val player: HapticPlayer
 ) {
-    private val vibrator: Vibrator? by lazy {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-            val vibratorManager = context.getSystemService(Context.VIBRATOR_MANAGER_SERVICE) as? VibratorManager
-            vibratorManager?.defaultVibrator
-        } else {
-            @Suppress("DEPRECATION")
-            context.getSystemService(Context.VIBRATOR_SERVICE) as? Vibrator
-        }
-    }
-    
-    private val hapticsEnabledKey = booleanPreferencesKey("haptics_enabled")
-    
-    private val isEnabled: Boolean
-        get() = runBlocking {
-            dataStore.data.first()[hapticsEnabledKey] ?: true
-        }
+    @Inject
+    constructor(
+        @ApplicationContext context: Context,
+        settingsRepository: SettingsRepository,
+        @ApplicationScope scope: CoroutineScope
+    ) : this(
+        HapticsSetting(settingsRepository.snapshot.map { it.hapticsEnabled }, scope),
+        VibratorHapticPlayer(context)
+    )
     
     fun lightTap() {
-        if (!isEnabled) return
-        vibrate(10, VibrationEffect.EFFECT_TICK)
+        if (!setting.isEnabled) return
+        player.tick()
     }
     
     fun mediumImpact() {
-        if (!isEnabled) return
-        vibrate(20, VibrationEffect.EFFECT_CLICK)
+        if (!setting.isEnabled) return
+        player.click()
     }
     
     fun heavyImpact() {
-        if (!isEnabled) return
-        vibrate(30, VibrationEffect.EFFECT_HEAVY_CLICK)
+        if (!setting.isEnabled) return
+        player.heavyClick()
     }
     
     fun successPattern() {
-        if (!isEnabled) return
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            val pattern = longArrayOf(0, 50, 100, 50)
-            vibrator?.vibrate(VibrationEffect.createWaveform(pattern, -1))
-        } else {
-            @Suppress("DEPRECATION")
-            vibrator?.vibrate(100)
-        }
+        if (!setting.isEnabled) return
+        player.success()
     }
     
     fun errorPattern() {
-        if (!isEnabled) return
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            val pattern = longArrayOf(0, 100, 50, 100)
-            vibrator?.vibrate(VibrationEffect.createWaveform(pattern, -1))
+        if (!setting.isEnabled) return
+        player.error()
+    }
+    
+    fun performHapticFeedback(view: View) {
+        if (!setting.isEnabled) return
+        view.performHapticFeedback(HapticFeedbackConstants.VIRTUAL_KEY)
+    }
+}
+
+/** Plays effects on the device vibrator. Effects are built once and reused for every tap. */
+private class VibratorHapticPlayer(private val context: Context) : HapticPlayer {
+    
+    private val vibrator: Vibrator? by lazy {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            val vibratorManager = context.getSystemService(Context.VIBRATOR_MANAGER_SERVICE) as? VibratorManager
+            vibratorManager?.defaultVibrator
         } else {
             @Suppress("DEPRECATION")
-            vibrator?.vibrate(200)
+            context.getSystemService(Context.VIBRATOR_SERVICE) as? Vibrator
         }
     }
     
-    private fun vibrate(duration: Long, effectId: Int) {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-            vibrator?.vibrate(VibrationEffect.createPredefined(effectId))
-        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            vibrator?.vibrate(VibrationEffect.createOneShot(duration, VibrationEffect.DEFAULT_AMPLITUDE))
+    // Effects are immutable, so one instance of each is reused for every tap
+    private val tickEffect by lazy { predefinedEffect(VibrationEffect.EFFECT_TICK, 10) }
+    private val clickEffect by lazy { predefinedEffect(VibrationEffect.EFFECT_CLICK, 20) }
+    private val heavyClickEffect by lazy { predefinedEffect(VibrationEffect.EFFECT_HEAVY_CLICK, 30) }
+    private val successEffect by lazy { waveformEffect(longArrayOf(0, 50, 100, 50)) }
+    private val errorEffect by lazy { waveformEffect(longArrayOf(0, 100, 50, 100)) }
+    
+    override fun tick() = vibrate(tickEffect, 10)
+    
+    override fun click() = vibrate(clickEffect, 20)
+    
+    override fun heavyClick() = vibrate(heavyClickEffect, 30)
+    
+    override fun success() = vibrate(successEffect, 100)
+    
+    override fun error() = vibrate(errorEffect, 200)
+    
+    private fun vibrate(effect: VibrationEffect?, fallbackMillis: Long) {
+        val vibrator = vibrator ?: return
+        if (effect != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            vibrator.vibrate(effect)
         } else {
             @Suppress("DEPRECATION")
-            vibrator?.vibrate(duration)
+            vibrator.vibrate(fallbackMillis)
         }
     }
     
-    fun performHapticFeedback(view: View) {
-        if (!isEnabled) return
-        view.performHapticFeedback(HapticFeedbackConstants.VIRTUAL_KEY)
+    private fun predefinedEffect(effectId: Int, duration: Long): VibrationEffect? = when {
+        Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q -> VibrationEffect.createPredefined(effectId)
+        Build.VERSION.SDK_INT >= Build.VERSION_CODES.O ->
+            VibrationEffect.createOneShot(duration, VibrationEffect.DEFAULT_AMPLITUDE)
+        else -> null
     }
+    
+    private fun waveformEffect(pattern: LongArray): VibrationEffect? =
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) VibrationEffect.createWaveform(pattern, -1) else null
 }
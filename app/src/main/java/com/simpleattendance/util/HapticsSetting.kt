@@ -0,0 +1,26 @@
+package com.simpleattendance.util
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.launchIn
+import kotlinx.coroutines.flow.onEach
+
+/**
+ * In-memory copy of the haptics setting. [enabled] is collected once, from construction,
+ * so reading [isEnabled] on a tap never goes back to the settings store.
+ */
+class HapticsSetting(enabled: Flow<Boolean>, scope: CoroutineScope) {
+
+    // Written by the collector, read on the tap path
+    @Volatile
+    var isEnabled = true
+        private set
+
+    init {
+        enabled
+            .distinctUntilChanged()
+            .onEach { isEnabled = it }
+            .launchIn(scope)
+    }
+}
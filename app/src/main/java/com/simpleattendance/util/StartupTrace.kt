@@ -0,0 +1,31 @@
+package com.simpleattendance.util
+
+import android.os.Build
+import android.os.Trace
+
+/**
+ * Async trace section from Application.onCreate to the first frame drawn by MainActivity,
+ * shown as "RollCall:timeToFirstFrame" in Perfetto and systrace captures.
+ * Async sections need API 29; on older devices nothing is recorded.
+ */
+object StartupTrace {
+    
+    private const val SECTION_FIRST_FRAME = "RollCall:timeToFirstFrame"
+    private const val COOKIE = 0
+    
+    @Volatile
+    private var isOpen = false
+    
+    fun begin() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q || isOpen) return
+        isOpen = true
+        Trace.beginAsyncSection(SECTION_FIRST_FRAME, COOKIE)
+    }
+    
+    /** Closes the section; only the first call after [begin] has any effect. */
+    fun firstFrameDrawn() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q || !isOpen) return
+        isOpen = false
+        Trace.endAsyncSection(SECTION_FIRST_FRAME, COOKIE)
+    }
+}
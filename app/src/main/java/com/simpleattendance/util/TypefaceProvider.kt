@@ -0,0 +1,90 @@
+package com.simpleattendance.util
+
+import android.content.Context
+import android.content.res.Resources
+import android.graphics.Typeface
+import android.os.Handler
+import android.os.Looper
+import androidx.annotation.FontRes
+import androidx.core.content.res.ResourcesCompat
+import com.simpleattendance.R
+
+/**
+ * Resolves the app's downloadable fonts once per process without blocking the caller.
+ *
+ * The Google Fonts provider is asked asynchronously, with the finite timeout set in the
+ * font XML. If it fails or times out (no Play services, or offline on first run) the static
+ * copy bundled under res/font is used, and a system face of the same weight only if that
+ * cannot be read. Results are cached, so only the first request for a font waits. All
+ * calls are made on the main thread.
+ */
+object TypefaceProvider {
+    
+    private class Fallback(@FontRes val bundledRes: Int, val systemStyle: Int)
+    
+    // Bundled faces standing in when the provider cannot deliver. Headlines use Inter Bold,
+    // the closest face shipped with the app to Outfit's weight and proportions.
+    private val fallbacks = mapOf(
+        R.font.outfit to Fallback(R.font.inter_bold, Typeface.BOLD),
+        R.font.inter to Fallback(R.font.inter_regular, Typeface.NORMAL)
+    )
+    
+    private val cache = HashMap<Int, Typeface>()
+    private val waiting = HashMap<Int, MutableList<(Typeface) -> Unit>>()
+    private val mainHandler = Handler(Looper.getMainLooper())
+    
+    /** Cached typeface for [fontRes], or null if it has not been resolved yet. */
+    fun peek(@FontRes fontRes: Int): Typeface? = cache[fontRes]
+    
+    /**
+     * Calls [onReady] with the typeface for [fontRes]: right away if cached, otherwise once
+     * resolved. A caller that can go away first must [cancel] so it is not held until then.
+     */
+    fun get(context: Context, @FontRes fontRes: Int, onReady: (Typeface) -> Unit) {
+        cache[fontRes]?.let {
+            onReady(it)
+            return
+        }
+        waiting[fontRes]?.let {
+            it.add(onReady)
+            return
+        }
+        waiting[fontRes] = mutableListOf(onReady)
+        
+        val appContext = context.applicationContext
+        ResourcesCompat.getFont(appContext, fontRes, object : ResourcesCompat.FontCallback() {
+            override fun onFontRetrieved(typeface: Typeface) {
+                deliver(fontRes, typeface)
+            }
+            
+            override fun onFontRetrievalFailed(reason: Int) {
+                deliver(fontRes, fallbackFor(appContext, fontRes))
+            }
+        }, mainHandler)
+    }
+    
+    /** Drops a pending [onReady] passed to [get]; the font is still resolved and cached. */
+    fun cancel(@FontRes fontRes: Int, onReady: (Typeface) -> Unit) {
+        waiting[fontRes]?.remove(onReady)
+    }
+    
+    /** Starts resolving [fontRes] fonts so views created later find them cached. */
+    fun preload(context: Context, @FontRes vararg fontRes: Int) {
+        fontRes.forEach { get(context, it) {} }
+    }
+    
+    private fun deliver(fontRes: Int, typeface: Typeface) {
+        cache[fontRes] = typeface
+        waiting.remove(fontRes)?.forEach { it(typeface) }
+    }
+    
+    private fun fallbackFor(context: Context, fontRes: Int): Typeface {
+        val fallback = fallbacks[fontRes] ?: return Typeface.DEFAULT
+        // A static font resource is read from the APK, so this needs no network
+        return try {
+            ResourcesCompat.getFont(context, fallback.bundledRes)
+        } catch (e: Resources.NotFoundException) {
+            null
+        } ?: Typeface.create(Typeface.DEFAULT, fallback.systemStyle)
+    }
+}
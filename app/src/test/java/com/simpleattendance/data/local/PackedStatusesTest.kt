@@ -0,0 +1,97 @@
+package com.simpleattendance.data.local
+
+import com.simpleattendance.data.local.entity.AttendanceDraftEntity
+import com.simpleattendance.data.local.entity.StudentEntity
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class PackedStatusesTest {
+
+    private val allCodes = byteArrayOf(AttendanceStatus.UNMARKED, AttendanceStatus.PRESENT, AttendanceStatus.ABSENT)
+
+    @Test
+    fun packCodes_roundTripsEveryLength() {
+        // Lengths either side of a byte boundary, four codes per byte
+        for (size in 0..9) {
+            val codes = ByteArray(size) { allCodes[it % allCodes.size] }
+            val packed = PackedStatuses.packCodes(codes)
+
+            assertEquals("bytes for $size codes", (size + 3) / 4, packed.size)
+            assertArrayEquals(codes, PackedStatuses.unpackCodes(packed, size))
+        }
+    }
+
+    @Test
+    fun pack_readsBackByPositionAndById() {
+        val ids = longArrayOf(3, 7, 8, 20, 21)
+        val codes = byteArrayOf(
+            AttendanceStatus.PRESENT,
+            AttendanceStatus.ABSENT,
+            AttendanceStatus.UNMARKED,
+            AttendanceStatus.ABSENT,
+            AttendanceStatus.PRESENT
+        )
+        val packed = PackedStatuses(PackedStatuses.pack(42L, ids, codes))
+
+        assertEquals(42L, packed.sessionId)
+        assertEquals(ids.size, packed.size)
+        for (position in ids.indices) {
+            assertEquals(ids[position], packed.studentIdAt(position))
+            assertEquals(codes[position], packed.codeAt(position))
+            assertEquals(codes[position], packed.codeOf(ids[position]))
+        }
+        // Students who were not on the roster read as unmarked
+        assertEquals(AttendanceStatus.UNMARKED, packed.codeOf(5))
+        assertEquals(AttendanceStatus.UNMARKED, packed.codeOf(100))
+    }
+
+    @Test
+    fun pack_roundTripsIdsAcrossVarintWidths() {
+        // Deltas of 1, 2, 3, 5 and 9 varint bytes
+        val ids = longArrayOf(1, 200, 70_000, 70_001, 5_000_000_000L, Long.MAX_VALUE)
+        val bitmap = PackedStatuses.pack(1L, ids, ByteArray(ids.size) { AttendanceStatus.PRESENT })
+        val packed = PackedStatuses(bitmap)
+
+        assertEquals(ids.toList(), (0 until packed.size).map { packed.studentIdAt(it) })
+        assertEquals(AttendanceStatus.PRESENT, packed.codeOf(Long.MAX_VALUE))
+    }
+
+    @Test
+    fun pack_smallDeltasTakeOneByteEach() {
+        val ids = LongArray(100) { it + 1L }
+        val bitmap = PackedStatuses.pack(1L, ids, ByteArray(ids.size))
+
+        // One byte for the count, then one per delta
+        assertEquals(1 + ids.size, bitmap.studentIds.size)
+        assertEquals(25, bitmap.statuses.size)
+    }
+
+    @Test
+    fun packStudents_sortsByIdAndKeepsEachCode() {
+        val students = listOf(30L, 10L, 20L).map { StudentEntity(id = it, classId = 1, rollNo = "R$it", name = "S$it") }
+        val codes = byteArrayOf(AttendanceStatus.ABSENT, AttendanceStatus.PRESENT, AttendanceStatus.UNMARKED)
+        val packed = PackedStatuses(PackedStatuses.pack(9L, students, codes))
+
+        assertEquals(listOf(10L, 20L, 30L), (0 until packed.size).map { packed.studentIdAt(it) })
+        assertEquals(AttendanceStatus.ABSENT, packed.codeOf(30))
+        assertEquals(AttendanceStatus.PRESENT, packed.codeOf(10))
+        assertEquals(AttendanceStatus.UNMARKED, packed.codeOf(20))
+    }
+
+    @Test
+    fun of_readsDraftBlobs() {
+        val bitmap = PackedStatuses.pack(0L, longArrayOf(4, 6), byteArrayOf(AttendanceStatus.ABSENT, AttendanceStatus.PRESENT))
+        val draft = AttendanceDraftEntity(
+            classId = 1L,
+            sessionKey = "key",
+            studentIds = bitmap.studentIds,
+            statuses = bitmap.statuses,
+            currentStudentId = 6L
+        )
+        val packed = PackedStatuses.of(draft)
+
+        assertEquals(AttendanceStatus.ABSENT, packed.codeOf(4))
+        assertEquals(AttendanceStatus.PRESENT, packed.codeOf(6))
+    }
+}
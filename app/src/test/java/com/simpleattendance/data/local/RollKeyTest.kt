@@ -0,0 +1,49 @@
+package com.simpleattendance.data.local
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class RollKeyTest {
+
+    private fun sortedByKey(vararg rollNos: String): List<String> = rollNos.sortedBy { RollKey.of(it) }
+
+    @Test
+    fun shorterNumbersSortFirst() {
+        assertEquals(listOf("CS1", "CS2", "CS10", "CS100"), sortedByKey("CS10", "CS100", "CS2", "CS1"))
+        assertTrue(RollKey.of("CS2") < RollKey.of("CS10"))
+    }
+
+    @Test
+    fun leadingZerosAreIgnored() {
+        assertEquals(RollKey.of("CS7"), RollKey.of("CS007"))
+        assertTrue(RollKey.of("CS007") < RollKey.of("CS10"))
+        // A run of zeros keeps one digit
+        assertEquals(RollKey.of("CS0"), RollKey.of("CS000"))
+    }
+
+    @Test
+    fun caseAndOuterSpacesAreIgnored() {
+        assertEquals(RollKey.of("cs10"), RollKey.of(" CS10 "))
+        assertEquals(listOf("cs1", "CS2", "cs10"), sortedByKey("cs10", "CS2", "cs1"))
+    }
+
+    @Test
+    fun everyDigitRunComparesNumerically() {
+        assertEquals(
+            listOf("2021-CS-2", "2021-CS-10", "2022-CS-1"),
+            sortedByKey("2022-CS-1", "2021-CS-10", "2021-CS-2")
+        )
+    }
+
+    @Test
+    fun numbersSortBeforeLetters() {
+        assertEquals(listOf("101", "A1", "B1"), sortedByKey("B1", "A1", "101"))
+    }
+
+    @Test
+    fun emptyRollHasEmptyKey() {
+        assertEquals("", RollKey.of(""))
+        assertEquals("", RollKey.of("   "))
+    }
+}
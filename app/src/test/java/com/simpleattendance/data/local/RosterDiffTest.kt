@@ -0,0 +1,99 @@
+package com.simpleattendance.data.local
+
+import com.simpleattendance.data.local.entity.StudentEntity
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class RosterDiffTest {
+
+    private fun existing(id: Long, rollNo: String, name: String) =
+        StudentEntity(id = id, classId = CLASS_ID, rollNo = rollNo, name = name)
+
+    private fun incoming(rollNo: String, name: String) =
+        StudentEntity(classId = 0, rollNo = rollNo, name = name)
+
+    private val roster = listOf(
+        existing(1, "CS1", "Asha"),
+        existing(2, "CS2", "Ravi"),
+        existing(3, "CS3", "Meera")
+    )
+
+    @Test
+    fun unchangedRoster_isEmpty() {
+        val diff = RosterDiff.compute(CLASS_ID, roster, roster.map { incoming(it.rollNo, it.name) })
+
+        assertTrue(diff.isEmpty)
+    }
+
+    @Test
+    fun nameFix_matchesByRollNumber() {
+        val diff = RosterDiff.compute(
+            CLASS_ID,
+            roster,
+            listOf(incoming("CS1", "Asha"), incoming("CS2", "Ravi Kumar"), incoming("CS3", "Meera"))
+        )
+
+        assertEquals(listOf(existing(2, "CS2", "Ravi Kumar")), diff.updates)
+        assertTrue(diff.inserts.isEmpty())
+        assertTrue(diff.deletes.isEmpty())
+    }
+
+    @Test
+    fun rollNumberFix_matchesByNameAndCarriesRollKey() {
+        val diff = RosterDiff.compute(
+            CLASS_ID,
+            roster,
+            listOf(incoming("CS1", "Asha"), incoming("CS2", "Ravi"), incoming("CS30", "Meera"))
+        )
+
+        val update = diff.updates.single()
+        assertEquals(3L, update.id)
+        assertEquals("CS30", update.rollNo)
+        assertEquals(RollKey.of("CS30"), update.rollKey)
+        assertTrue(diff.inserts.isEmpty())
+        assertTrue(diff.deletes.isEmpty())
+    }
+
+    @Test
+    fun exactMatchesWinBeforeLooserPasses() {
+        // Ravi keeps CS2 exactly, so the new "CS2" row with another name must not steal his id
+        val diff = RosterDiff.compute(
+            CLASS_ID,
+            roster,
+            listOf(incoming("CS1", "Asha"), incoming("CS2", "Kiran"), incoming("CS2", "Ravi"), incoming("CS3", "Meera"))
+        )
+
+        assertTrue(diff.updates.isEmpty())
+        assertTrue(diff.deletes.isEmpty())
+        assertEquals(listOf(StudentEntity(classId = CLASS_ID, rollNo = "CS2", name = "Kiran")), diff.inserts)
+    }
+
+    @Test
+    fun leftoversAreInsertedAndDeleted() {
+        val diff = RosterDiff.compute(
+            CLASS_ID,
+            roster,
+            listOf(incoming("CS1", "Asha"), incoming("CS4", "Vikram"), incoming("CS3", "Meera"))
+        )
+
+        assertEquals(listOf(StudentEntity(classId = CLASS_ID, rollNo = "CS4", name = "Vikram")), diff.inserts)
+        assertEquals(listOf(existing(2, "CS2", "Ravi")), diff.deletes)
+        assertTrue(diff.updates.isEmpty())
+    }
+
+    @Test
+    fun blankRollNumbers_matchOnlyByName() {
+        val unnumbered = listOf(existing(1, "", "Asha"), existing(2, "", "Ravi"))
+
+        val diff = RosterDiff.compute(CLASS_ID, unnumbered, listOf(incoming("", "Ravi"), incoming("", "Sita")))
+
+        assertEquals(listOf(StudentEntity(classId = CLASS_ID, rollNo = "", name = "Sita")), diff.inserts)
+        assertEquals(listOf(existing(1, "", "Asha")), diff.deletes)
+        assertTrue(diff.updates.isEmpty())
+    }
+
+    companion object {
+        private const val CLASS_ID = 7L
+    }
+}
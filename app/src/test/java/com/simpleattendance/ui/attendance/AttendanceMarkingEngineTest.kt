@@ -0,0 +1,174 @@
+package com.simpleattendance.ui.attendance
+
+import com.simpleattendance.data.local.AttendanceStatus
+import com.simpleattendance.data.local.entity.StudentEntity
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class AttendanceMarkingEngineTest {
+
+    private fun roster(size: Int): List<StudentEntity> =
+        (1..size).map { StudentEntity(id = it.toLong(), classId = 1, rollNo = "CS$it", name = "Student $it") }
+
+    private fun AttendanceMarkingEngine.assertCounts(present: Int, absent: Int) {
+        assertEquals("present", present, presentCount)
+        assertEquals("absent", absent, absentCount)
+        assertEquals("marked", present + absent, markedCount)
+        assertEquals("unmarked", size - present - absent, unmarkedCount)
+    }
+
+    @Test
+    fun load_countsPrefilledCodes() {
+        val engine = AttendanceMarkingEngine()
+        engine.load(roster(4), byteArrayOf(AttendanceStatus.PRESENT, AttendanceStatus.ABSENT, AttendanceStatus.UNMARKED, AttendanceStatus.PRESENT))
+
+        engine.assertCounts(present = 2, absent = 1)
+        assertEquals(0, engine.currentIndex)
+        assertFalse(engine.allMarked)
+    }
+
+    @Test
+    fun markCurrent_advancesAndCounts() {
+        val engine = AttendanceMarkingEngine()
+        engine.load(roster(3))
+
+        assertTrue(engine.markCurrent(AttendanceStatus.PRESENT))
+        assertTrue(engine.markCurrent(AttendanceStatus.ABSENT))
+        assertTrue(engine.markCurrent(AttendanceStatus.PRESENT))
+
+        engine.assertCounts(present = 2, absent = 1)
+        assertTrue(engine.allMarked)
+        // The cursor stays on the last student once the roster is done
+        assertEquals(2, engine.currentIndex)
+    }
+
+    @Test
+    fun remark_movesCountBetweenStatuses() {
+        val engine = AttendanceMarkingEngine()
+        engine.load(roster(3))
+        engine.markAt(1, AttendanceStatus.PRESENT)
+
+        assertEquals(AttendanceStatus.PRESENT, engine.markAt(1, AttendanceStatus.ABSENT))
+        engine.assertCounts(present = 0, absent = 1)
+
+        assertEquals(AttendanceStatus.ABSENT, engine.markAt(1, AttendanceStatus.ABSENT))
+        engine.assertCounts(present = 0, absent = 1)
+
+        assertEquals(AttendanceStatus.ABSENT, engine.markAt(1, AttendanceStatus.UNMARKED))
+        engine.assertCounts(present = 0, absent = 0)
+    }
+
+    @Test
+    fun markAt_leavesCursorAlone() {
+        val engine = AttendanceMarkingEngine()
+        engine.load(roster(5))
+
+        engine.markAt(3, AttendanceStatus.ABSENT)
+
+        assertEquals(0, engine.currentIndex)
+        assertEquals("A", engine.statusAt(3))
+        engine.assertCounts(present = 0, absent = 1)
+    }
+
+    @Test
+    fun markAndAdvance_staleIndexDoesNotMoveCursor() {
+        val engine = AttendanceMarkingEngine()
+        engine.load(roster(5))
+        engine.moveTo(2)
+
+        assertTrue(engine.markAndAdvance(0, AttendanceStatus.PRESENT))
+        assertEquals(2, engine.currentIndex)
+
+        assertTrue(engine.markAndAdvance(2, AttendanceStatus.PRESENT))
+        assertEquals(3, engine.currentIndex)
+
+        assertFalse(engine.markAndAdvance(5, AttendanceStatus.PRESENT))
+        engine.assertCounts(present = 2, absent = 0)
+    }
+
+    @Test
+    fun reset_clearsStatusesAndCounters() {
+        val engine = AttendanceMarkingEngine()
+        engine.load(roster(4))
+        repeat(4) { engine.markCurrent(if (it % 2 == 0) AttendanceStatus.PRESENT else AttendanceStatus.ABSENT) }
+
+        engine.reset()
+
+        engine.assertCounts(present = 0, absent = 0)
+        assertEquals(0, engine.currentIndex)
+        assertArrayEquals(ByteArray(4), engine.snapshotStatuses())
+    }
+
+    @Test
+    fun reorder_carriesStatusesAndKeepsCounters() {
+        val engine = AttendanceMarkingEngine()
+        engine.load(roster(4))
+        engine.markAt(0, AttendanceStatus.PRESENT)
+        engine.markAt(3, AttendanceStatus.ABSENT)
+
+        engine.reorder(compareByDescending { it.id })
+
+        assertEquals(listOf(4L, 3L, 2L, 1L), engine.roster.map { it.id })
+        assertEquals("A", engine.statusAt(0))
+        assertEquals("P", engine.statusAt(3))
+        engine.assertCounts(present = 1, absent = 1)
+        assertEquals(0, engine.currentIndex)
+    }
+
+    @Test
+    fun reorderByKeys_isStableForEqualKeys() {
+        val engine = AttendanceMarkingEngine()
+        engine.load(roster(4))
+        engine.markAt(1, AttendanceStatus.PRESENT)
+
+        engine.reorderByKeys(listOf(1, 0, 1, 0))
+
+        assertEquals(listOf(2L, 4L, 1L, 3L), engine.roster.map { it.id })
+        assertEquals("P", engine.statusAt(0))
+        engine.assertCounts(present = 1, absent = 0)
+    }
+
+    /** Roster that counts every element read, to prove marking never walks the students. */
+    private class CountingRoster(private val students: List<StudentEntity>) : AbstractList<StudentEntity>() {
+        var reads = 0
+
+        override val size: Int
+            get() = students.size
+
+        override fun get(index: Int): StudentEntity {
+            reads++
+            return students[index]
+        }
+    }
+
+    /**
+     * Marks whole rosters of 100, 1k and 10k students. Each mark must stay O(1): no
+     * student is read from the roster, and the counters stay exact after every pass.
+     */
+    @Test
+    fun markAndAdvance_neverReadsRoster() {
+        for (size in intArrayOf(100, 1_000, 10_000)) {
+            val roster = CountingRoster(roster(size))
+            val engine = AttendanceMarkingEngine()
+            engine.load(roster)
+            roster.reads = 0
+
+            repeat(3) { pass ->
+                if (pass > 0) engine.reset()
+                for (i in 0 until size) {
+                    engine.markAndAdvance(i, if (i < size / 3) AttendanceStatus.ABSENT else AttendanceStatus.PRESENT)
+                }
+                engine.assertCounts(present = size - size / 3, absent = size / 3)
+                assertEquals(size - 1, engine.currentIndex)
+            }
+            // Re-marking everyone moves each count across without a recount
+            for (i in 0 until size) engine.markAt(i, AttendanceStatus.PRESENT)
+            engine.assertCounts(present = size, absent = 0)
+
+            assertEquals("roster reads while marking $size students", 0, roster.reads)
+        }
+    }
+}
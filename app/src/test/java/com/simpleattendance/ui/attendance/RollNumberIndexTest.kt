@@ -0,0 +1,80 @@
+package com.simpleattendance.ui.attendance
+
+import com.simpleattendance.data.local.entity.StudentEntity
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class RollNumberIndexTest {
+
+    // Roster order is deliberately not roll order, so positions prove the lookup maps back
+    private val rolls = listOf("CS10", "cs2", "CS1", "EE12", "CS11", "EE07", "", "CS12")
+
+    private val index = RollNumberIndex(
+        rolls.mapIndexed { i, roll -> StudentEntity(id = i + 1L, classId = 1, rollNo = roll, name = "Student $i") }
+    )
+
+    private fun positionsOf(vararg rollNos: String): List<Int> = rollNos.map { rolls.indexOf(it) }
+
+    @Test
+    fun suggest_matchesPrefixCaseInsensitively() {
+        assertEquals(positionsOf("CS1", "CS10", "CS11", "CS12"), index.suggest("cs1"))
+        assertEquals(positionsOf("EE07", "EE12"), index.suggest("Ee"))
+        assertEquals(emptyList<Int>(), index.suggest("ME"))
+        assertEquals(emptyList<Int>(), index.suggest("  "))
+    }
+
+    @Test
+    fun suggest_stopsAtLimit() {
+        assertEquals(positionsOf("CS1", "CS10"), index.suggest("c", limit = 2))
+    }
+
+    @Test
+    fun find_isExactAndIgnoresCase() {
+        assertEquals(rolls.indexOf("cs2"), index.find("CS2"))
+        assertEquals(rolls.indexOf("EE12"), index.find(" ee12 "))
+        assertEquals(-1, index.find("CS"))
+    }
+
+    @Test
+    fun resolve_rangeWithTextPartStaysInItsBlock() {
+        val resolution = index.resolve("CS10-CS12")
+
+        assertEquals(positionsOf("CS10", "CS11", "CS12").toSet(), resolution.positions.toSet())
+        assertEquals(emptyList<String>(), resolution.unmatched)
+    }
+
+    @Test
+    fun resolve_rangeMayLeaveTextPartOffItsEnd() {
+        assertEquals(positionsOf("CS10", "CS11").toSet(), index.resolve("cs10-11").positions.toSet())
+    }
+
+    @Test
+    fun resolve_rejectsRangeAcrossTextParts() {
+        val resolution = index.resolve("CS10-EE12")
+
+        assertEquals(emptyList<Int>(), resolution.positions)
+        assertEquals(listOf("CS10-EE12"), resolution.unmatched)
+    }
+
+    @Test
+    fun resolve_bareRangeMatchesEveryTextPart() {
+        assertEquals(positionsOf("CS11", "CS12", "EE12").toSet(), index.resolve("11-12").positions.toSet())
+    }
+
+    @Test
+    fun resolve_bareNumberMatchesOnlyWhenUnique() {
+        // 7 ends only EE07; 12 ends both CS12 and EE12
+        val resolution = index.resolve("7, 12")
+
+        assertEquals(positionsOf("EE07"), resolution.positions)
+        assertEquals(listOf("12"), resolution.unmatched)
+    }
+
+    @Test
+    fun resolve_keepsInputOrderWithoutDuplicates() {
+        val resolution = index.resolve("CS12; cs1 CS12,nobody")
+
+        assertEquals(positionsOf("CS12", "CS1"), resolution.positions)
+        assertEquals(listOf("nobody"), resolution.unmatched)
+    }
+}
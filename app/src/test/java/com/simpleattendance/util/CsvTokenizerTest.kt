@@ -0,0 +1,115 @@
+package com.simpleattendance.util
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.fail
+import org.junit.Test
+import java.io.BufferedInputStream
+import java.io.ByteArrayInputStream
+import java.io.StringReader
+import java.nio.charset.Charset
+
+class CsvTokenizerTest {
+
+    private fun records(tokenizer: CsvTokenizer): List<List<String>> {
+        val result = ArrayList<List<String>>()
+        val fields = ArrayList<String>()
+        while (tokenizer.nextRecord(fields)) result.add(ArrayList(fields))
+        return result
+    }
+
+    private fun parse(text: String, delimiter: Char = ','): List<List<String>> =
+        records(CsvTokenizer(StringReader(text), delimiter))
+
+    private fun sniff(bytes: ByteArray): List<List<String>> =
+        records(CsvParser.tokenizerFor(BufferedInputStream(ByteArrayInputStream(bytes))))
+
+    @Test
+    fun quotedFields_keepDelimitersQuotesAndLineBreaks() {
+        val text = "101,\"Doe, Jane\"\n102,\"Said \"\"hi\"\"\"\n103,\"Two\r\nlines\"\n"
+
+        assertEquals(
+            listOf(
+                listOf("101", "Doe, Jane"),
+                listOf("102", "Said \"hi\""),
+                listOf("103", "Two\nlines")
+            ),
+            parse(text)
+        )
+    }
+
+    @Test
+    fun lineEndings_crlfLfAndCrAllEndRecords() {
+        assertEquals(
+            listOf(listOf("a", "b"), listOf("c", "d"), listOf("e", "f"), listOf("g", "h")),
+            parse("a,b\r\nc,d\ne,f\rg,h")
+        )
+    }
+
+    @Test
+    fun recordLineNumber_countsLinesInsideQuotes() {
+        val tokenizer = CsvTokenizer(StringReader("1,\"A\r\nB\"\r\n2,C\r\n"))
+        val fields = ArrayList<String>()
+
+        tokenizer.nextRecord(fields)
+        assertEquals(1, tokenizer.recordLineNumber)
+        tokenizer.nextRecord(fields)
+        assertEquals(3, tokenizer.recordLineNumber)
+        assertEquals(listOf("2", "C"), fields)
+        assertFalse(tokenizer.nextRecord(fields))
+    }
+
+    @Test
+    fun unquotedFieldsAreTrimmed_quotedAreNot() {
+        assertEquals(listOf(listOf("101", " Asha ", "x")), parse("  101 , \" Asha \" ,x \t"))
+    }
+
+    @Test
+    fun emptyFieldsArePreserved() {
+        assertEquals(listOf(listOf("", "Asha", "")), parse(",Asha,\n"))
+    }
+
+    @Test
+    fun unterminatedQuote_reportsItsStartLine() {
+        try {
+            parse("1,Asha\n2,\"Ravi\n3,Meera\n")
+            fail("expected CsvParseException")
+        } catch (e: CsvParseException) {
+            assertEquals(2, e.lineNumber)
+        }
+    }
+
+    @Test
+    fun utf8Bom_isConsumed() {
+        val bytes = byteArrayOf(0xEF.toByte(), 0xBB.toByte(), 0xBF.toByte()) + "Roll,Name\n1,Zoë\n".toByteArray(Charsets.UTF_8)
+
+        assertEquals(listOf(listOf("Roll", "Name"), listOf("1", "Zoë")), sniff(bytes))
+    }
+
+    @Test
+    fun utf16Bom_selectsUtf16() {
+        val bytes = byteArrayOf(0xFF.toByte(), 0xFE.toByte()) + "1;Asha\r\n".toByteArray(Charsets.UTF_16LE)
+
+        assertEquals(listOf(listOf("1", "Asha")), sniff(bytes))
+    }
+
+    @Test
+    fun invalidUtf8_fallsBackToWindows1252() {
+        val bytes = "1,René\n".toByteArray(Charset.forName("windows-1252"))
+
+        assertEquals(listOf(listOf("1", "René")), sniff(bytes))
+    }
+
+    @Test
+    fun delimiter_detectedFromFirstLine() {
+        assertEquals(listOf(listOf("1", "Asha K")), sniff("1;Asha K\n".toByteArray()))
+        assertEquals(listOf(listOf("1", "Asha K")), sniff("1\tAsha K\n".toByteArray()))
+        assertEquals(listOf(listOf("1", "Asha; K")), sniff("1,Asha; K\n".toByteArray()))
+    }
+
+    @Test
+    fun delimiter_ignoresQuotedCandidates() {
+        // Three commas inside quotes lose to one semicolon outside them
+        assertEquals(listOf(listOf("a,b,c,d", "e")), sniff("\"a,b,c,d\";e\n".toByteArray()))
+    }
+}
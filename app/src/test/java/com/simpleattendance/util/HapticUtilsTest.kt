@@ -0,0 +1,90 @@
+package com.simpleattendance.util
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.FlowCollector
+import kotlinx.coroutines.flow.MutableStateFlow
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.fail
+import org.junit.Test
+
+class HapticUtilsTest {
+
+    /**
+     * Settings flow that may only be collected once, while [HapticsSetting] is constructed.
+     * A second collection means the setting was read again on the tap path.
+     */
+    private class ReadOnceSettings(initial: Boolean) : Flow<Boolean> {
+        val state = MutableStateFlow(initial)
+        var sealed = false
+        var collections = 0
+
+        override suspend fun collect(collector: FlowCollector<Boolean>) {
+            if (sealed) fail("haptics setting was read after construction")
+            collections++
+            state.collect(collector)
+        }
+    }
+
+    private class CountingPlayer : HapticPlayer {
+        var played = 0
+
+        override fun tick() { played++ }
+        override fun click() { played++ }
+        override fun heavyClick() { played++ }
+        override fun success() { played++ }
+        override fun error() { played++ }
+    }
+
+    // Unconfined runs the collector inline, so every setting change lands before the next line
+    private val scope = CoroutineScope(Job() + Dispatchers.Unconfined)
+
+    @After
+    fun tearDown() {
+        scope.cancel()
+    }
+
+    private fun hapticsFor(settings: ReadOnceSettings, player: HapticPlayer): HapticUtils {
+        val haptics = HapticUtils(HapticsSetting(settings, scope), player)
+        settings.sealed = true
+        return haptics
+    }
+
+    @Test
+    fun taps_doNotReadSettings() {
+        val settings = ReadOnceSettings(initial = true)
+        val player = CountingPlayer()
+        val haptics = hapticsFor(settings, player)
+
+        repeat(1_000) {
+            haptics.lightTap()
+            haptics.heavyImpact()
+        }
+
+        assertEquals(2_000, player.played)
+        assertEquals(1, settings.collections)
+    }
+
+    @Test
+    fun disabling_silencesTapsWithoutRereading() {
+        val settings = ReadOnceSettings(initial = true)
+        val player = CountingPlayer()
+        val haptics = hapticsFor(settings, player)
+
+        haptics.lightTap()
+        settings.state.value = false
+        repeat(100) {
+            haptics.lightTap()
+            haptics.heavyImpact()
+        }
+        settings.state.value = true
+        haptics.heavyImpact()
+
+        assertEquals(2, player.played)
+        assertEquals(1, settings.collections)
+    }
+}